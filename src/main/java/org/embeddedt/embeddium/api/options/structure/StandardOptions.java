@@ -51,13 +51,22 @@ public final class StandardOptions {
         public static final ResourceLocation MIPMAP_LEVEL = ResourceLocation.fromNamespaceAndPath("minecraft", "mipmap_levels");
         public static final ResourceLocation CHUNK_UPDATE_THREADS = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "chunk_update_threads");
         public static final ResourceLocation DEFFER_CHUNK_UPDATES = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "defer_chunk_updates");
+        public static final ResourceLocation SPLIT_CHUNK_UPDATES = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "split_important_chunk_updates");
         public static final ResourceLocation BLOCK_FACE_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "block_face_culling");
+        public static final ResourceLocation FRONT_TO_BACK_ORDERING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "front_to_back_ordering");
         public static final ResourceLocation COMPACT_VERTEX_FORMAT = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "compact_vertex_format");
         public static final ResourceLocation FOG_OCCLUSION = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "fog_occlusion");
+        public static final ResourceLocation INCREMENTAL_OCCLUSION_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "incremental_occlusion_culling");
+        public static final ResourceLocation PARALLEL_OCCLUSION_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "parallel_occlusion_culling");
+        public static final ResourceLocation OCCLUSION_RASTERIZER = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "occlusion_rasterizer");
+        public static final ResourceLocation HORIZON_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "horizon_culling");
+        public static final ResourceLocation SUB_SECTION_OCCLUSION_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "sub_section_occlusion_culling");
+        public static final ResourceLocation ASYNC_OCCLUSION_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "async_occlusion_culling");
         public static final ResourceLocation ENTITY_CULLING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "entity_culling");
         public static final ResourceLocation ANIMATE_VISIBLE_TEXTURES = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "animate_only_visible_textures");
         public static final ResourceLocation NO_ERROR_CONTEXT = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "no_error_context");
         public static final ResourceLocation PERSISTENT_MAPPING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "persistent_mapping");
+        public static final ResourceLocation INDIRECT_DRAWING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "indirect_drawing");
         public static final ResourceLocation CPU_FRAMES_AHEAD = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "cpu_render_ahead_limit");
         public static final ResourceLocation TRANSLUCENT_FACE_SORTING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "translucent_face_sorting");
         public static final ResourceLocation USE_QUAD_NORMALS_FOR_LIGHTING = ResourceLocation.fromNamespaceAndPath(Embeddium.MODID, "use_quad_normals_for_lighting");
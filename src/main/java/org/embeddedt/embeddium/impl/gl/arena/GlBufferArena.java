@@ -1,5 +1,7 @@
 package org.embeddedt.embeddium.impl.gl.arena;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectSortedMap;
 import org.embeddedt.embeddium.impl.gl.arena.staging.StagingBuffer;
 import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
 import org.embeddedt.embeddium.impl.gl.buffer.GlBufferUsage;
@@ -30,6 +32,12 @@ public class GlBufferArena {
 
     private GlBufferSegment head;
 
+    /**
+     * The free segments of the arena, ordered by their length and then by their offset (see {@link #getFreeSegmentKey}),
+     * so that the smallest free segment which can hold an allocation is found without walking every segment.
+     */
+    private final Long2ObjectSortedMap<GlBufferSegment> freeSegments = new Long2ObjectRBTreeMap<>();
+
     private int capacity;
     private int used;
 
@@ -44,6 +52,8 @@ public class GlBufferArena {
         this.head = new GlBufferSegment(this, 0, initialCapacity);
         this.head.setFree(true);
 
+        this.addFreeSegment(this.head);
+
         this.arenaBuffer = commands.createMutableBuffer();
         commands.allocateStorage(this.arenaBuffer, (long)this.capacity * stride, BUFFER_USAGE);
 
@@ -67,6 +77,10 @@ public class GlBufferArena {
         this.head = new GlBufferSegment(this, 0, tail);
         this.head.setFree(true);
 
+        // All the free space has been compacted into the new head segment
+        this.freeSegments.clear();
+        this.addFreeSegment(this.head);
+
         if (usedSegments.isEmpty()) {
             this.head.setNext(null);
         } else {
@@ -175,6 +189,8 @@ public class GlBufferArena {
 
         GlBufferSegment result;
 
+        this.removeFreeSegment(a);
+
         if (a.getLength() == size) {
             a.setFree(false);
 
@@ -192,6 +208,8 @@ public class GlBufferArena {
             a.setLength(a.getLength() - size);
             a.setNext(b);
 
+            this.addFreeSegment(a);
+
             result = b;
         }
 
@@ -202,24 +220,29 @@ public class GlBufferArena {
     }
 
     private GlBufferSegment findFree(int size) {
-        GlBufferSegment entry = this.head;
-        GlBufferSegment best = null;
-
-        while (entry != null) {
-            if (entry.isFree()) {
-                if (entry.getLength() == size) {
-                    return entry;
-                } else if (entry.getLength() >= size) {
-                    if (best == null || best.getLength() > entry.getLength()) {
-                        best = entry;
-                    }
-                }
-            }
+        // The first key at or after this belongs to the shortest free segment which is long enough, or the one with the
+        // lowest offset if there are several
+        Long2ObjectSortedMap<GlBufferSegment> candidates = this.freeSegments.tailMap(getFreeSegmentKey(size, 0));
+
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        return candidates.get(candidates.firstLongKey());
+    }
 
-            entry = entry.getNext();
+    private void addFreeSegment(GlBufferSegment segment) {
+        this.freeSegments.put(getFreeSegmentKey(segment.getLength(), segment.getOffset()), segment);
+    }
+
+    private void removeFreeSegment(GlBufferSegment segment) {
+        if (this.freeSegments.remove(getFreeSegmentKey(segment.getLength(), segment.getOffset())) != segment) {
+            throw new IllegalStateException("Free segment was not indexed");
         }
+    }
 
-        return best;
+    private static long getFreeSegmentKey(int length, int offset) {
+        return ((long) length << 32) | offset;
     }
 
     public void free(GlBufferSegment entry) {
@@ -234,13 +257,18 @@ public class GlBufferArena {
         GlBufferSegment next = entry.getNext();
 
         if (next != null && next.isFree()) {
+            this.removeFreeSegment(next);
             entry.mergeInto(next);
         }
 
         GlBufferSegment prev = entry.getPrev();
 
         if (prev != null && prev.isFree()) {
+            this.removeFreeSegment(prev);
             prev.mergeInto(entry);
+            this.addFreeSegment(prev);
+        } else {
+            this.addFreeSegment(entry);
         }
 
         this.checkAssertions();
@@ -337,6 +365,7 @@ public class GlBufferArena {
     private void checkAssertions0() {
         GlBufferSegment seg = this.head;
         int used = 0;
+        int free = 0;
 
         while (seg != null) {
             if (seg.getOffset() < 0) {
@@ -347,6 +376,12 @@ public class GlBufferArena {
 
             if (!seg.isFree()) {
                 used += seg.getLength();
+            } else {
+                if (this.freeSegments.get(getFreeSegmentKey(seg.getLength(), seg.getOffset())) != seg) {
+                    throw new IllegalStateException("segment.free && !arena.freeSegments.contains(segment): free segment not indexed");
+                }
+
+                free++;
             }
 
             GlBufferSegment next = seg.getNext();
@@ -393,6 +428,10 @@ public class GlBufferArena {
         if (this.used != used) {
             throw new IllegalStateException("arena.used is invalid");
         }
+
+        if (this.freeSegments.size() != free) {
+            throw new IllegalStateException("arena.freeSegments.size != free segment count: stale free segments indexed");
+        }
     }
 
 }
@@ -1,10 +1,18 @@
 package org.embeddedt.embeddium.impl.gl.device;
 
+import org.embeddedt.embeddium.impl.gl.buffer.GlBuffer;
 import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
 
 public interface DrawCommandList extends AutoCloseable {
     void multiDrawElementsBaseVertex(MultiDrawBatch batch, GlIndexType indexType);
 
+    /**
+     * Draws the commands stored in the given buffer, which are tightly packed {@code DrawElementsIndirectCommand}
+     * structures. This is only available when the device's {@link org.embeddedt.embeddium.impl.gl.functions.IndirectDrawFunctions}
+     * are supported.
+     */
+    void multiDrawElementsIndirect(GlBuffer commandBuffer, long commandOffset, int commandCount, GlIndexType indexType);
+
     void endTessellating();
 
     void flush();
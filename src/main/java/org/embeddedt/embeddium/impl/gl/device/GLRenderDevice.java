@@ -278,6 +278,15 @@ public class GLRenderDevice implements RenderDevice {
                     batch.pBaseVertex);
         }
 
+        @Override
+        public void multiDrawElementsIndirect(GlBuffer commandBuffer, long commandOffset, int commandCount, GlIndexType indexType) {
+            GlPrimitiveType primitiveType = GLRenderDevice.this.activeTessellation.getPrimitiveType();
+
+            GLRenderDevice.this.commandList.bindBuffer(GlBufferTarget.DRAW_INDIRECT_BUFFER, commandBuffer);
+            GLRenderDevice.this.functions.getIndirectDrawFunctions()
+                    .multiDrawElementsIndirect(primitiveType, indexType, commandOffset, commandCount);
+        }
+
         @Override
         public void endTessellating() {
             GLRenderDevice.this.activeTessellation.unbind(GLRenderDevice.this.commandList);
@@ -40,6 +40,21 @@ public final class MultiDrawBatch {
         this.size = 0;
     }
 
+    /**
+     * Replaces the commands in this batch with those of another, which must fit within the capacity of this batch.
+     */
+    public void copyFrom(MultiDrawBatch other) {
+        if (other.size > this.capacity) {
+            throw new IllegalArgumentException("Batch of size " + other.size + " does not fit in capacity " + this.capacity);
+        }
+
+        MemoryUtil.memCopy(other.pElementPointer, this.pElementPointer, (long) other.size * Pointer.POINTER_SIZE);
+        MemoryUtil.memCopy(other.pElementCount, this.pElementCount, (long) other.size * Integer.BYTES);
+        MemoryUtil.memCopy(other.pBaseVertex, this.pBaseVertex, (long) other.size * Integer.BYTES);
+
+        this.size = other.size;
+    }
+
     public void delete() {
         MemoryUtil.nmemAlignedFree(this.pElementPointer);
         MemoryUtil.nmemAlignedFree(this.pElementCount);
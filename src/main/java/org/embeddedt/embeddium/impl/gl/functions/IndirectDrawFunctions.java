@@ -0,0 +1,47 @@
+package org.embeddedt.embeddium.impl.gl.functions;
+
+import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlPrimitiveType;
+import org.lwjgl.opengl.ARBMultiDrawIndirect;
+import org.lwjgl.opengl.GL43C;
+import org.lwjgl.opengl.GLCapabilities;
+
+public enum IndirectDrawFunctions {
+    NONE {
+        @Override
+        public void multiDrawElementsIndirect(GlPrimitiveType primitiveType, GlIndexType indexType, long offset, int count) {
+            throw new UnsupportedOperationException();
+        }
+    },
+    CORE {
+        @Override
+        public void multiDrawElementsIndirect(GlPrimitiveType primitiveType, GlIndexType indexType, long offset, int count) {
+            GL43C.glMultiDrawElementsIndirect(primitiveType.getId(), indexType.getFormatId(), offset, count, 0);
+        }
+    },
+    ARB {
+        @Override
+        public void multiDrawElementsIndirect(GlPrimitiveType primitiveType, GlIndexType indexType, long offset, int count) {
+            ARBMultiDrawIndirect.glMultiDrawElementsIndirect(primitiveType.getId(), indexType.getFormatId(), offset, count, 0);
+        }
+    };
+
+    public static IndirectDrawFunctions pickBest(RenderDevice device) {
+        GLCapabilities capabilities = device.getCapabilities();
+
+        if (capabilities.OpenGL43) {
+            return CORE;
+        } else if (capabilities.GL_ARB_multi_draw_indirect) {
+            return ARB;
+        } else {
+            return NONE;
+        }
+    }
+
+    /**
+     * Draws the commands stored in the bound indirect buffer, starting at the given byte offset. The commands must be
+     * tightly packed.
+     */
+    public abstract void multiDrawElementsIndirect(GlPrimitiveType primitiveType, GlIndexType indexType, long offset, int count);
+}
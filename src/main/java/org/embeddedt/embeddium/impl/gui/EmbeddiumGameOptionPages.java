@@ -25,6 +25,7 @@ import org.embeddedt.embeddium.api.options.storage.MinecraftOptionsStorage;
 import org.embeddedt.embeddium.api.options.structure.OptionStorage;
 import org.embeddedt.embeddium.impl.gui.options.FullscreenResolutionHelper;
 import org.embeddedt.embeddium.impl.gui.options.storage.EmbeddiumOptionsStorage;
+import org.embeddedt.embeddium.impl.render.chunk.IndirectChunkRenderer;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuilder;
 import net.minecraft.client.*;
 import net.minecraft.network.chat.Component;
@@ -340,6 +341,14 @@ public class EmbeddiumGameOptionPages {
                         .setBinding((opts, value) -> opts.performance.alwaysDeferChunkUpdates = value, opts -> opts.performance.alwaysDeferChunkUpdates)
                         .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
                         .build())
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.SPLIT_CHUNK_UPDATES)
+                        .setName(Component.translatable("embeddium.options.split_important_chunk_updates.name"))
+                        .setTooltip(Component.translatable("embeddium.options.split_important_chunk_updates.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setBinding((opts, value) -> opts.performance.splitImportantChunkUpdates = value, opts -> opts.performance.splitImportantChunkUpdates)
+                        .build())
                 .build()
         );
 
@@ -355,6 +364,16 @@ public class EmbeddiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.FRONT_TO_BACK_ORDERING)
+                        .setName(Component.translatable("embeddium.options.use_front_to_back_ordering.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_front_to_back_ordering.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.LOW)
+                        .setBinding((opts, value) -> opts.performance.useFrontToBackOrdering = value, opts -> opts.performance.useFrontToBackOrdering)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setId(StandardOptions.Option.COMPACT_VERTEX_FORMAT)
                         .setName(Component.translatable("sodium.options.use_compact_vertex_format.name"))
@@ -378,6 +397,66 @@ public class EmbeddiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.INCREMENTAL_OCCLUSION_CULLING)
+                        .setName(Component.translatable("embeddium.options.use_incremental_occlusion_culling.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_incremental_occlusion_culling.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useIncrementalOcclusionCulling = value, opts -> opts.performance.useIncrementalOcclusionCulling)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.PARALLEL_OCCLUSION_CULLING)
+                        .setName(Component.translatable("embeddium.options.use_parallel_occlusion_culling.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_parallel_occlusion_culling.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useParallelOcclusionCulling = value, opts -> opts.performance.useParallelOcclusionCulling)
+                        .setImpact(OptionImpact.LOW)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.OCCLUSION_RASTERIZER)
+                        .setName(Component.translatable("embeddium.options.use_occlusion_rasterizer.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_occlusion_rasterizer.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useOcclusionRasterizer = value, opts -> opts.performance.useOcclusionRasterizer)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.HORIZON_CULLING)
+                        .setName(Component.translatable("embeddium.options.use_horizon_culling.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_horizon_culling.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useHorizonCulling = value, opts -> opts.performance.useHorizonCulling)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.SUB_SECTION_OCCLUSION_CULLING)
+                        .setName(Component.translatable("embeddium.options.use_sub_section_occlusion_culling.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_sub_section_occlusion_culling.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useSubSectionOcclusionCulling = value, opts -> opts.performance.useSubSectionOcclusionCulling)
+                        .setImpact(OptionImpact.MEDIUM)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.ASYNC_OCCLUSION_CULLING)
+                        .setName(Component.translatable("embeddium.options.use_async_occlusion_culling.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_async_occlusion_culling.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setBinding((opts, value) -> opts.performance.useAsyncOcclusionCulling = value, opts -> opts.performance.useAsyncOcclusionCulling)
+                        .setImpact(OptionImpact.HIGH)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_UPDATE)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
                         .setId(StandardOptions.Option.ENTITY_CULLING)
                         .setName(Component.translatable("sodium.options.use_entity_culling.name"))
@@ -443,6 +522,17 @@ public class EmbeddiumGameOptionPages {
                         .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
                         .build()
                 )
+                .add(OptionImpl.createBuilder(boolean.class, sodiumOpts)
+                        .setId(StandardOptions.Option.INDIRECT_DRAWING)
+                        .setName(Component.translatable("embeddium.options.use_indirect_drawing.name"))
+                        .setTooltip(Component.translatable("embeddium.options.use_indirect_drawing.tooltip"))
+                        .setControl(TickBoxControl::new)
+                        .setImpact(OptionImpact.LOW)
+                        .setEnabled(IndirectChunkRenderer.isSupported(RenderDevice.INSTANCE))
+                        .setBinding((opts, value) -> opts.advanced.useIndirectDrawing = value, opts -> opts.advanced.useIndirectDrawing)
+                        .setFlags(OptionFlag.REQUIRES_RENDERER_RELOAD)
+                        .build()
+                )
                 .add(OptionImpl.createBuilder(int.class, sodiumOpts)
                         .setId(StandardOptions.Option.CPU_FRAMES_AHEAD)
                         .setName(Component.translatable("sodium.options.cpu_render_ahead_limit.name"))
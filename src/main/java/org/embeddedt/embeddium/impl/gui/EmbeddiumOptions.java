@@ -43,11 +43,19 @@ public class EmbeddiumOptions {
         public int chunkBuilderThreads = 0;
         @SerializedName("always_defer_chunk_updates_v2") // this will reset the option in older configs
         public boolean alwaysDeferChunkUpdates = true;
+        public boolean splitImportantChunkUpdates = true;
 
         public boolean animateOnlyVisibleTextures = true;
         public boolean useEntityCulling = true;
         public boolean useFogOcclusion = true;
+        public boolean useIncrementalOcclusionCulling = false;
+        public boolean useParallelOcclusionCulling = false;
+        public boolean useOcclusionRasterizer = false;
+        public boolean useHorizonCulling = false;
+        public boolean useSubSectionOcclusionCulling = false;
+        public boolean useAsyncOcclusionCulling = false;
         public boolean useBlockFaceCulling = true;
+        public boolean useFrontToBackOrdering = false;
         public boolean useCompactVertexFormat = true;
         @SerializedName("use_translucent_face_sorting_v2")
         public boolean useTranslucentFaceSorting = true;
@@ -57,7 +65,10 @@ public class EmbeddiumOptions {
 
     public static class AdvancedSettings {
         public boolean enableMemoryTracing = false;
+        public boolean exportChunkBuildTimings = false;
+        public boolean recordChunkBuildTrace = false;
         public boolean useAdvancedStagingBuffers = true;
+        public boolean useIndirectDrawing = true;
         public boolean disableIncompatibleModWarnings = false;
 
         public int cpuRenderAheadLimit = 3;
@@ -170,6 +170,9 @@ public class EmbeddiumWorldRenderer {
                              boolean updateChunksImmediately) {
         NativeBuffer.reclaim(false);
 
+        // The graph search started last frame may still be running, and must finish before any sections change
+        this.renderSectionManager.finishPendingCulling();
+
         this.processChunkEvents();
 
         this.useEntityCulling = Embeddium.options().performance.useEntityCulling;
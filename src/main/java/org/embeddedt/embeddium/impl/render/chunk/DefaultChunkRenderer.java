@@ -26,6 +26,7 @@ import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
 import org.embeddedt.embeddium.impl.util.BitwiseMath;
 import org.lwjgl.system.MemoryUtil;
+import java.util.Arrays;
 import java.util.Iterator;
 
 public class DefaultChunkRenderer extends ShaderChunkRenderer {
@@ -37,6 +38,9 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
 
     private boolean isIndexedPass;
 
+    // Scratch space for sorting the sections of a region by their distance from the camera
+    private final int[] sectionSortKeys = new int[RenderRegion.REGION_SIZE];
+
     public DefaultChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
         super(device, vertexType);
 
@@ -56,6 +60,10 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
 
         boolean useBlockFaceCulling = Embeddium.options().performance.useBlockFaceCulling;
 
+        // Drawing opaque geometry from front to back lets the GPU reject hidden fragments before shading them. Sorted
+        // passes must keep the order of their render lists.
+        boolean sortByDistance = Embeddium.options().performance.useFrontToBackOrdering && !renderPass.isSorted();
+
         ChunkShaderInterface shader = this.activeProgram.getInterface();
         shader.setProjectionMatrix(matrices.projection());
         shader.setModelViewMatrix(matrices.modelView());
@@ -74,34 +82,47 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
                 continue;
             }
 
-            fillCommandBuffer(this.batch, region, storage, renderList, camera, renderPass, useBlockFaceCulling);
+            // The camera's position only matters to the commands when faces are being culled by it
+            boolean cullFaces = useBlockFaceCulling && !renderPass.isSorted();
 
-            if (this.batch.isEmpty()) {
-                continue;
-            }
+            var cache = storage.getDrawCommandCache();
+            var batch = cache.get(renderList, cullFaces, sortByDistance, camera.intX, camera.intY, camera.intZ);
 
+            if (batch == null) {
+                this.fillCommandBuffer(this.batch, region, storage, renderList, camera, renderPass, cullFaces, sortByDistance);
 
+                if (!this.isIndexedPass) {
+                    coalesceDrawCommands(this.batch);
+                }
+
+                batch = cache.store(this.batch, renderList, cullFaces, sortByDistance, camera.intX, camera.intY, camera.intZ);
+            }
+
+            if (batch.isEmpty()) {
+                continue;
+            }
 
             if (!this.isIndexedPass) {
-                this.sharedIndexBuffer.ensureCapacity(commandList, this.batch.getIndexBufferSize());
+                this.sharedIndexBuffer.ensureCapacity(commandList, cache.getIndexBufferSize());
             }
 
             var tessellation = this.prepareTessellation(commandList, region);
 
             setModelMatrixUniforms(shader, region, camera);
-            executeDrawBatch(commandList, tessellation, this.batch);
+            executeDrawBatch(commandList, tessellation, batch);
         }
 
         super.end(renderPass);
     }
 
-    private static void fillCommandBuffer(MultiDrawBatch batch,
-                                          RenderRegion renderRegion,
-                                          SectionRenderDataStorage renderDataStorage,
-                                          ChunkRenderList renderList,
-                                          CameraTransform camera,
-                                          TerrainRenderPass pass,
-                                          boolean useBlockFaceCulling) {
+    private void fillCommandBuffer(MultiDrawBatch batch,
+                                   RenderRegion renderRegion,
+                                   SectionRenderDataStorage renderDataStorage,
+                                   ChunkRenderList renderList,
+                                   CameraTransform camera,
+                                   TerrainRenderPass pass,
+                                   boolean cullFaces,
+                                   boolean sortByDistance) {
         batch.clear();
 
         var iterator = renderList.sectionsWithGeometryIterator(pass.isReverseOrder());
@@ -110,34 +131,75 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
             return;
         }
 
-        int originX = renderRegion.getChunkX();
-        int originY = renderRegion.getChunkY();
-        int originZ = renderRegion.getChunkZ();
-
         int indexPointerMask = pass.isSorted() ? 0xFFFFFFFF : 0;
 
+        if (!sortByDistance) {
+            while (iterator.hasNext()) {
+                addSectionDrawCommands(batch, renderRegion, renderDataStorage, iterator.nextByteAsInt(), camera, cullFaces, indexPointerMask);
+            }
+
+            return;
+        }
+
+        // The distance is measured in whole sections from the section containing the camera, so that the order only
+        // changes (and the cached commands are only discarded) when the camera moves into another section
+        int cameraX = camera.intX >> 4;
+        int cameraY = camera.intY >> 4;
+        int cameraZ = camera.intZ >> 4;
+
+        int[] keys = this.sectionSortKeys;
+        int count = 0;
+
         while (iterator.hasNext()) {
             int sectionIndex = iterator.nextByteAsInt();
 
-            int chunkX = originX + LocalSectionIndex.unpackX(sectionIndex);
-            int chunkY = originY + LocalSectionIndex.unpackY(sectionIndex);
-            int chunkZ = originZ + LocalSectionIndex.unpackZ(sectionIndex);
+            int dx = getSectionDistance(renderRegion.getChunkX() + LocalSectionIndex.unpackX(sectionIndex), cameraX);
+            int dy = getSectionDistance(renderRegion.getChunkY() + LocalSectionIndex.unpackY(sectionIndex), cameraY);
+            int dz = getSectionDistance(renderRegion.getChunkZ() + LocalSectionIndex.unpackZ(sectionIndex), cameraZ);
 
-            var pMeshData = renderDataStorage.getDataPointer(sectionIndex);
+            // The section index is kept in the low bits, which also breaks ties between sections at the same distance
+            keys[count++] = (((dx * dx) + (dy * dy) + (dz * dz)) << 8) | sectionIndex;
+        }
 
-            int slices;
+        Arrays.sort(keys, 0, count);
 
-            if (useBlockFaceCulling && !pass.isSorted()) {
-                slices = getVisibleFaces(camera.intX, camera.intY, camera.intZ, chunkX, chunkY, chunkZ);
-            } else {
-                slices = ModelQuadFacing.ALL;
-            }
+        for (int i = 0; i < count; i++) {
+            addSectionDrawCommands(batch, renderRegion, renderDataStorage, keys[i] & 0xFF, camera, cullFaces, indexPointerMask);
+        }
+    }
 
-            slices &= SectionRenderDataUnsafe.getSliceMask(pMeshData);
+    // Clamped so that the squared distance of any section, shifted above the section index, cannot overflow
+    private static final int MAX_SORT_DISTANCE = 1024;
 
-            if (slices != 0) {
-                addDrawCommands(batch, pMeshData, slices, indexPointerMask);
-            }
+    private static int getSectionDistance(int chunkPos, int cameraChunkPos) {
+        return Math.min(Math.abs(chunkPos - cameraChunkPos), MAX_SORT_DISTANCE);
+    }
+
+    private static void addSectionDrawCommands(MultiDrawBatch batch,
+                                               RenderRegion renderRegion,
+                                               SectionRenderDataStorage renderDataStorage,
+                                               int sectionIndex,
+                                               CameraTransform camera,
+                                               boolean cullFaces,
+                                               int indexPointerMask) {
+        int chunkX = renderRegion.getChunkX() + LocalSectionIndex.unpackX(sectionIndex);
+        int chunkY = renderRegion.getChunkY() + LocalSectionIndex.unpackY(sectionIndex);
+        int chunkZ = renderRegion.getChunkZ() + LocalSectionIndex.unpackZ(sectionIndex);
+
+        var pMeshData = renderDataStorage.getDataPointer(sectionIndex);
+
+        int slices;
+
+        if (cullFaces) {
+            slices = getVisibleFaces(camera.intX, camera.intY, camera.intZ, chunkX, chunkY, chunkZ);
+        } else {
+            slices = ModelQuadFacing.ALL;
+        }
+
+        slices &= SectionRenderDataUnsafe.getSliceMask(pMeshData);
+
+        if (slices != 0) {
+            addDrawCommands(batch, pMeshData, slices, indexPointerMask);
         }
     }
 
@@ -160,6 +222,59 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         batch.size = size;
     }
 
+    // The most elements a merged draw command may cover. Every element drawn with the shared index buffer must be
+    // present in it, so this keeps the buffer from growing to the size of a whole region.
+    private static final int MAX_COALESCED_ELEMENT_COUNT = 6 * 65536;
+
+    /**
+     * Merges each run of draw commands whose vertices lie directly after one another in the vertex buffer into a single
+     * command. This is only possible when drawing with the shared index buffer, which repeats the same pattern for
+     * every quad, so that any run of quads can be drawn by one command. Sections which were uploaded together are
+     * usually stored next to each other, as are the facings within a section, so this often merges many commands.
+     */
+    private static void coalesceDrawCommands(MultiDrawBatch batch) {
+        int size = batch.size;
+
+        if (size < 2) {
+            return;
+        }
+
+        final var pBaseVertex = batch.pBaseVertex;
+        final var pElementCount = batch.pElementCount;
+
+        int baseVertex = MemoryUtil.memGetInt(pBaseVertex);
+        int elementCount = MemoryUtil.memGetInt(pElementCount);
+
+        int merged = 0;
+
+        for (int i = 1; i < size; i++) {
+            int nextBaseVertex = MemoryUtil.memGetInt(pBaseVertex + (i << 2));
+            int nextElementCount = MemoryUtil.memGetInt(pElementCount + (i << 2));
+
+            // Each quad is four vertices and six elements
+            boolean contiguous = nextBaseVertex == baseVertex + ((elementCount / 6) * 4);
+
+            if (contiguous && elementCount + nextElementCount <= MAX_COALESCED_ELEMENT_COUNT) {
+                elementCount += nextElementCount;
+                continue;
+            }
+
+            MemoryUtil.memPutInt(pBaseVertex + (merged << 2), baseVertex);
+            MemoryUtil.memPutInt(pElementCount + (merged << 2), elementCount);
+            merged++;
+
+            baseVertex = nextBaseVertex;
+            elementCount = nextElementCount;
+        }
+
+        MemoryUtil.memPutInt(pBaseVertex + (merged << 2), baseVertex);
+        MemoryUtil.memPutInt(pElementCount + (merged << 2), elementCount);
+        merged++;
+
+        // The element pointers are all zero, since every command starts at the beginning of the shared index buffer
+        batch.size = merged;
+    }
+
     private static final int MODEL_UNASSIGNED = ModelQuadFacing.UNASSIGNED.ordinal();
     private static final int MODEL_POS_X      = ModelQuadFacing.POS_X.ordinal();
     private static final int MODEL_POS_Y      = ModelQuadFacing.POS_Y.ordinal();
@@ -274,7 +389,7 @@ public class DefaultChunkRenderer extends ShaderChunkRenderer {
         });
     }
 
-    private static void executeDrawBatch(CommandList commandList, GlTessellation tessellation, MultiDrawBatch batch) {
+    protected void executeDrawBatch(CommandList commandList, GlTessellation tessellation, MultiDrawBatch batch) {
         try (DrawCommandList drawCommandList = commandList.beginTessellating(tessellation)) {
             drawCommandList.multiDrawElementsBaseVertex(batch, GlIndexType.UNSIGNED_INT);
         }
@@ -0,0 +1,115 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderList;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The draw commands which were last generated for one render pass of a region, which can be drawn again for as long
+ * as nothing they were generated from has changed. Most frames are drawn from the same block with the same sections
+ * visible, so this avoids re-reading the mesh data of every visible section each frame.
+ *
+ * <p>The commands depend on which sections are in the render list (and their order), the meshes of those sections,
+ * which block the camera is in (when block face culling is used), and which section the camera is in (when the
+ * sections are sorted by their distance from it). The owner of the meshes is responsible for
+ * calling {@link #invalidate()} whenever they change.</p>
+ */
+public class DrawCommandCache {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private @Nullable MultiDrawBatch batch;
+    private int indexBufferSize;
+
+    private boolean valid;
+
+    private final byte[] sections = new byte[RenderRegion.REGION_SIZE];
+    private int sectionCount;
+
+    private boolean useBlockFaceCulling;
+    private boolean sortByDistance;
+    private int cameraX, cameraY, cameraZ;
+
+    /**
+     * {@return the cached commands, or null if they were generated from anything other than the given state}
+     */
+    public @Nullable MultiDrawBatch get(ChunkRenderList renderList, boolean useBlockFaceCulling, boolean sortByDistance,
+                                        int cameraX, int cameraY, int cameraZ) {
+        if (!this.valid || this.useBlockFaceCulling != useBlockFaceCulling || this.sortByDistance != sortByDistance) {
+            return null;
+        }
+
+        if (useBlockFaceCulling) {
+            if (this.cameraX != cameraX || this.cameraY != cameraY || this.cameraZ != cameraZ) {
+                return null;
+            }
+        } else if (sortByDistance) {
+            if ((this.cameraX >> 4) != (cameraX >> 4) || (this.cameraY >> 4) != (cameraY >> 4) || (this.cameraZ >> 4) != (cameraZ >> 4)) {
+                return null;
+            }
+        }
+
+        if (!renderList.hasSectionsWithGeometry(this.sections, this.sectionCount)) {
+            return null;
+        }
+
+        return this.batch;
+    }
+
+    /**
+     * Replaces the cached commands with a copy of the given batch, which was just generated from the given state.
+     *
+     * @return The cached copy of the batch
+     */
+    public MultiDrawBatch store(MultiDrawBatch batch, ChunkRenderList renderList, boolean useBlockFaceCulling, boolean sortByDistance,
+                                int cameraX, int cameraY, int cameraZ) {
+        if (this.batch == null || this.batch.capacity() < batch.size()) {
+            int capacity = this.batch == null ? INITIAL_CAPACITY : this.batch.capacity();
+
+            while (capacity < batch.size()) {
+                capacity *= 2;
+            }
+
+            if (this.batch != null) {
+                this.batch.delete();
+            }
+
+            this.batch = new MultiDrawBatch(capacity);
+        }
+
+        this.batch.copyFrom(batch);
+        this.indexBufferSize = batch.getIndexBufferSize();
+
+        this.sectionCount = renderList.copySectionsWithGeometry(this.sections);
+
+        this.useBlockFaceCulling = useBlockFaceCulling;
+        this.sortByDistance = sortByDistance;
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+
+        this.valid = true;
+
+        return this.batch;
+    }
+
+    /**
+     * {@return the number of elements the shared index buffer must hold to draw the cached commands}
+     */
+    public int getIndexBufferSize() {
+        return this.indexBufferSize;
+    }
+
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    public void delete() {
+        if (this.batch != null) {
+            this.batch.delete();
+            this.batch = null;
+        }
+
+        this.valid = false;
+    }
+}
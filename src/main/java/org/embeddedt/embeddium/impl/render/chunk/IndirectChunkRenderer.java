@@ -0,0 +1,96 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferMapFlags;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferMapping;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferStorageFlags;
+import org.embeddedt.embeddium.impl.gl.buffer.GlImmutableBuffer;
+import org.embeddedt.embeddium.impl.gl.device.CommandList;
+import org.embeddedt.embeddium.impl.gl.device.DrawCommandList;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
+import org.embeddedt.embeddium.impl.gl.functions.BufferStorageFunctions;
+import org.embeddedt.embeddium.impl.gl.functions.IndirectDrawFunctions;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlTessellation;
+import org.embeddedt.embeddium.impl.gl.util.EnumBitField;
+import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderListIterable;
+import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
+import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
+import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
+
+/**
+ * A chunk renderer which writes the draw commands of each region into a persistently mapped buffer and submits them
+ * with one indirect multi-draw, rather than passing the driver arrays in client memory which it must copy on every
+ * call. The commands are still generated (and cached) exactly as they are by {@link DefaultChunkRenderer}.
+ *
+ * <p>Each region is drawn separately, since the vertex array and the region offset differ between them. The buffer is
+ * managed by an {@link IndirectCommandRing}. If a region's commands do not fit into the space which has been released,
+ * they are drawn from client memory instead of waiting.</p>
+ */
+public class IndirectChunkRenderer extends DefaultChunkRenderer {
+    private static final EnumBitField<GlBufferStorageFlags> STORAGE_FLAGS =
+            EnumBitField.of(GlBufferStorageFlags.PERSISTENT, GlBufferStorageFlags.MAP_WRITE);
+
+    private static final EnumBitField<GlBufferMapFlags> MAP_FLAGS =
+            EnumBitField.of(GlBufferMapFlags.PERSISTENT, GlBufferMapFlags.INVALIDATE_BUFFER, GlBufferMapFlags.WRITE, GlBufferMapFlags.EXPLICIT_FLUSH);
+
+    private static final int CAPACITY = 1024 * 1024 * 4 /* 4 MB */;
+
+    private final GlImmutableBuffer commandBuffer;
+    private final GlBufferMapping commandMapping;
+    private final IndirectCommandRing commandRing;
+
+    public IndirectChunkRenderer(RenderDevice device, ChunkVertexType vertexType) {
+        super(device, vertexType);
+
+        CommandList commandList = device.createCommandList();
+
+        this.commandBuffer = commandList.createImmutableBuffer(CAPACITY, STORAGE_FLAGS);
+        this.commandMapping = commandList.mapBuffer(this.commandBuffer, 0, CAPACITY, MAP_FLAGS);
+        this.commandRing = new IndirectCommandRing(this.commandMapping);
+    }
+
+    public static boolean isSupported(RenderDevice device) {
+        var functions = device.getDeviceFunctions();
+
+        return functions.getIndirectDrawFunctions() != IndirectDrawFunctions.NONE &&
+                functions.getBufferStorageFunctions() != BufferStorageFunctions.NONE;
+    }
+
+    @Override
+    public void render(ChunkRenderMatrices matrices,
+                       CommandList commandList,
+                       ChunkRenderListIterable renderLists,
+                       TerrainRenderPass renderPass,
+                       CameraTransform camera) {
+        this.commandRing.releaseCompletedRegions();
+
+        super.render(matrices, commandList, renderLists, renderPass, camera);
+
+        this.commandRing.fence(commandList);
+    }
+
+    @Override
+    protected void executeDrawBatch(CommandList commandList, GlTessellation tessellation, MultiDrawBatch batch) {
+        int offset = this.commandRing.write(commandList, batch, GlIndexType.UNSIGNED_INT);
+
+        if (offset < 0) {
+            super.executeDrawBatch(commandList, tessellation, batch);
+            return;
+        }
+
+        try (DrawCommandList drawCommandList = commandList.beginTessellating(tessellation)) {
+            drawCommandList.multiDrawElementsIndirect(this.commandBuffer, offset, batch.size(), GlIndexType.UNSIGNED_INT);
+        }
+    }
+
+    @Override
+    public void delete(CommandList commandList) {
+        super.delete(commandList);
+
+        this.commandRing.delete();
+
+        commandList.unmap(this.commandMapping);
+        commandList.deleteBuffer(this.commandBuffer);
+    }
+}
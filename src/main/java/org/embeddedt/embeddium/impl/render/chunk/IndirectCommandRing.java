@@ -0,0 +1,149 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import it.unimi.dsi.fastutil.PriorityQueue;
+import it.unimi.dsi.fastutil.objects.ObjectArrayFIFOQueue;
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferMapping;
+import org.embeddedt.embeddium.impl.gl.device.CommandList;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.gl.sync.GlFence;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Packs the commands of each {@link MultiDrawBatch} into a mapped buffer as tightly packed
+ * {@code DrawElementsIndirectCommand} structures, using the buffer as a ring.
+ *
+ * <p>A fence is created through the command list at the end of each render pass which wrote commands, and the space
+ * used by that pass is only released once the fence has completed, so that commands are never overwritten while the
+ * GPU may still be reading them. This does not create or own the buffer itself, and only touches GL through the
+ * command list and fences it is given.</p>
+ */
+public class IndirectCommandRing {
+    // The layout of DrawElementsIndirectCommand: count, instanceCount, firstIndex, baseVertex, baseInstance
+    public static final int COMMAND_STRIDE = 5 * 4;
+
+    private final GlBufferMapping mapping;
+    private final long pCommands;
+    private final int capacity;
+
+    private final PriorityQueue<FencedMemoryRegion> fencedRegions = new ObjectArrayFIFOQueue<>();
+
+    private int pos = 0;
+    private int remaining;
+
+    // The number of bytes used since the last fence was created
+    private int pendingBytes = 0;
+
+    public IndirectCommandRing(GlBufferMapping mapping) {
+        this.mapping = mapping;
+        this.pCommands = MemoryUtil.memAddress(mapping.getMemoryBuffer());
+        this.capacity = mapping.getMemoryBuffer().capacity();
+        this.remaining = this.capacity;
+    }
+
+    /**
+     * Writes the commands of the given batch into the ring, and flushes them from the mapping.
+     *
+     * @return The offset of the commands within the buffer, or -1 if there is not enough free space for them
+     */
+    public int write(CommandList commandList, MultiDrawBatch batch, GlIndexType indexType) {
+        int length = batch.size() * COMMAND_STRIDE;
+        int offset = this.allocate(length);
+
+        if (offset < 0) {
+            return -1;
+        }
+
+        writeCommands(batch, this.pCommands + offset, indexType);
+        commandList.flushMappedRange(this.mapping, offset, length);
+
+        return offset;
+    }
+
+    /**
+     * Creates a fence covering every command written since the last one. This must be called once all the commands
+     * written during a render pass have been submitted.
+     */
+    public void fence(CommandList commandList) {
+        if (this.pendingBytes > 0) {
+            this.fencedRegions.enqueue(new FencedMemoryRegion(commandList.createFence(), this.pendingBytes));
+            this.pendingBytes = 0;
+        }
+    }
+
+    /**
+     * Releases the space used by commands which the GPU has finished reading.
+     */
+    public void releaseCompletedRegions() {
+        while (!this.fencedRegions.isEmpty()) {
+            var region = this.fencedRegions.first();
+            var fence = region.fence();
+
+            if (!fence.isCompleted()) {
+                break;
+            }
+
+            fence.delete();
+
+            this.fencedRegions.dequeue();
+            this.remaining += region.length();
+        }
+    }
+
+    /**
+     * {@return the number of bytes which can currently be used, including any which will be skipped on wrapping}
+     */
+    public int getRemaining() {
+        return this.remaining;
+    }
+
+    public void delete() {
+        while (!this.fencedRegions.isEmpty()) {
+            this.fencedRegions.dequeue().fence().delete();
+        }
+    }
+
+    /**
+     * Reserves space for the given number of bytes of commands, which must be contiguous.
+     *
+     * @return The offset of the space within the buffer, or -1 if there is not enough free space
+     */
+    private int allocate(int length) {
+        // Any space left at the end of the buffer which is too small is skipped, and is released along with the rest
+        boolean wrap = length > this.capacity - this.pos;
+        int used = wrap ? (this.capacity - this.pos) + length : length;
+
+        if (used > this.remaining) {
+            return -1;
+        }
+
+        int offset = wrap ? 0 : this.pos;
+
+        this.pos = offset + length;
+        this.remaining -= used;
+        this.pendingBytes += used;
+
+        return offset;
+    }
+
+    static void writeCommands(MultiDrawBatch batch, long pCommand, GlIndexType indexType) {
+        int stride = indexType.getStride();
+
+        for (int i = 0; i < batch.size; i++) {
+            // The element pointers of a batch are byte offsets, but the commands address the index buffer by element
+            long elementPointer = MemoryUtil.memGetAddress(batch.pElementPointer + ((long) i << 3));
+
+            MemoryUtil.memPutInt(pCommand,      MemoryUtil.memGetInt(batch.pElementCount + ((long) i << 2)));
+            MemoryUtil.memPutInt(pCommand + 4,  1);
+            MemoryUtil.memPutInt(pCommand + 8,  (int) (elementPointer / stride));
+            MemoryUtil.memPutInt(pCommand + 12, MemoryUtil.memGetInt(batch.pBaseVertex + ((long) i << 2)));
+            MemoryUtil.memPutInt(pCommand + 16, 0);
+
+            pCommand += COMMAND_STRIDE;
+        }
+    }
+
+    private record FencedMemoryRegion(GlFence fence, int length) {
+
+    }
+}
@@ -2,8 +2,9 @@ package org.embeddedt.embeddium.impl.render.chunk;
 
 import lombok.Getter;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
-import org.embeddedt.embeddium.impl.render.chunk.occlusion.GraphDirection;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.GraphDirectionSet;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SectionBounds;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SectionGraph;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.VisibilityEncoding;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
@@ -20,8 +21,9 @@ import java.util.Collections;
 import java.util.Map;
 
 /**
- * The render state object for a chunk section. This contains all the graphics state for each render pass along with
- * data about the render in the chunk visibility graph.
+ * The render state object for a chunk section. This contains all the graphics state for each render pass. The data
+ * about the render in the chunk visibility graph is stored in the {@link SectionGraph}, and is only exposed here for
+ * convenience.
  */
 public class RenderSection {
     // Render Region State
@@ -32,20 +34,8 @@ public class RenderSection {
     private final int chunkX, chunkY, chunkZ;
 
     // Occlusion Culling State
-    private long visibilityData = VisibilityEncoding.NULL;
-
-    private int incomingDirections;
-    private int lastVisibleFrame = -1;
-
-    private int adjacentMask;
-    public RenderSection
-            adjacentDown,
-            adjacentUp,
-            adjacentNorth,
-            adjacentSouth,
-            adjacentWest,
-            adjacentEast;
-
+    private final SectionGraph graph;
+    private final int id;
 
     // Rendering State
     private boolean built = false; // merge with the flags?
@@ -85,7 +75,7 @@ public class RenderSection {
     // Used by the translucency sorter, to determine when a section needs sorting again
     public double lastCameraX, lastCameraY, lastCameraZ;
 
-    public RenderSection(RenderRegion region, int chunkX, int chunkY, int chunkZ) {
+    public RenderSection(RenderRegion region, int chunkX, int chunkY, int chunkZ, SectionGraph graph) {
         this.chunkX = chunkX;
         this.chunkY = chunkY;
         this.chunkZ = chunkZ;
@@ -97,40 +87,33 @@ public class RenderSection {
         this.sectionIndex = LocalSectionIndex.pack(rX, rY, rZ);
 
         this.region = region;
+
+        this.graph = graph;
+        this.id = graph.add(this);
     }
 
-    public RenderSection getAdjacent(int direction) {
-        return switch (direction) {
-            case GraphDirection.DOWN -> this.adjacentDown;
-            case GraphDirection.UP -> this.adjacentUp;
-            case GraphDirection.NORTH -> this.adjacentNorth;
-            case GraphDirection.SOUTH -> this.adjacentSouth;
-            case GraphDirection.WEST -> this.adjacentWest;
-            case GraphDirection.EAST -> this.adjacentEast;
-            default -> null;
-        };
+    /**
+     * {@return the ID of this section in the visibility graph} IDs are re-used once a section has been deleted.
+     */
+    public int getId() {
+        return this.id;
     }
 
-    public void setAdjacentNode(int direction, RenderSection node) {
-        if (node == null) {
-            this.adjacentMask &= ~GraphDirectionSet.of(direction);
-        } else {
-            this.adjacentMask |= GraphDirectionSet.of(direction);
+    public @Nullable RenderSection getAdjacent(int direction) {
+        if (this.disposed) {
+            return null;
         }
 
-        switch (direction) {
-            case GraphDirection.DOWN -> this.adjacentDown = node;
-            case GraphDirection.UP -> this.adjacentUp = node;
-            case GraphDirection.NORTH -> this.adjacentNorth = node;
-            case GraphDirection.SOUTH -> this.adjacentSouth = node;
-            case GraphDirection.WEST -> this.adjacentWest = node;
-            case GraphDirection.EAST -> this.adjacentEast = node;
-            default -> { }
-        }
+        int adjacentId = this.graph.getAdjacent(this.id, direction);
+        return adjacentId == SectionGraph.NULL_ID ? null : this.graph.getSection(adjacentId);
+    }
+
+    public void setAdjacentNode(int direction, @Nullable RenderSection node) {
+        this.graph.setAdjacent(this.id, direction, node == null ? SectionGraph.NULL_ID : node.id);
     }
 
     public int getAdjacentMask() {
-        return this.adjacentMask;
+        return this.disposed ? GraphDirectionSet.NONE : this.graph.getAdjacentMask(this.id);
     }
 
     /**
@@ -146,32 +129,50 @@ public class RenderSection {
 
         this.clearRenderState();
         this.disposed = true;
+
+        this.graph.remove(this.id);
     }
 
-    public void setInfo(@Nullable BuiltSectionInfo info) {
+    /**
+     * Updates the render state of this section.
+     *
+     * @return True if the visibility data of the section changed
+     */
+    public boolean setInfo(@Nullable BuiltSectionInfo info) {
         if (info != null) {
-            this.setRenderState(info);
+            return this.setRenderState(info);
         } else {
-            this.clearRenderState();
+            return this.clearRenderState();
         }
     }
 
-    private void setRenderState(@NotNull BuiltSectionInfo info) {
+    private boolean setRenderState(@NotNull BuiltSectionInfo info) {
         this.built = true;
         this.flags = info.flags;
-        this.visibilityData = info.visibilityData;
+        boolean visibilityChanged = this.graph.setVisibilityData(this.id, info.visibilityData, info.subFaceVisibility);
+        this.graph.setGeometryBounds(this.id, info.geometryBounds);
         this.globalBlockEntities = info.globalBlockEntities;
         this.culledBlockEntities = info.culledBlockEntities;
         this.animatedSprites = info.animatedSprites;
+
+        return visibilityChanged;
     }
 
-    private void clearRenderState() {
+    private boolean clearRenderState() {
         this.built = false;
         this.flags = RenderSectionFlags.NONE;
-        this.visibilityData = VisibilityEncoding.NULL;
+
+        boolean visibilityChanged = false;
+
+        if (!this.disposed) {
+            visibilityChanged = this.graph.setVisibilityData(this.id, VisibilityEncoding.NULL, null);
+            this.graph.setGeometryBounds(this.id, SectionBounds.FULL);
+        }
         this.globalBlockEntities = null;
         this.culledBlockEntities = null;
         this.animatedSprites = null;
+
+        return visibilityChanged;
     }
 
     /**
@@ -279,23 +280,16 @@ public class RenderSection {
     }
 
     public void setLastVisibleFrame(int frame) {
-        this.lastVisibleFrame = frame;
+        this.graph.setLastVisibleFrame(this.id, frame);
     }
 
     public int getLastVisibleFrame() {
-        return this.lastVisibleFrame;
-    }
-
-    public int getIncomingDirections() {
-        return this.incomingDirections;
-    }
-
-    public void addIncomingDirections(int directions) {
-        this.incomingDirections |= directions;
+        // The section's ID may have been given to another section since it was deleted
+        return this.disposed ? -1 : this.graph.getLastVisibleFrame(this.id);
     }
 
-    public void setIncomingDirections(int directions) {
-        this.incomingDirections = directions;
+    public int getLastReachedFrame() {
+        return this.disposed ? -1 : this.graph.getLastReachedFrame(this.id);
     }
 
     /**
@@ -313,7 +307,7 @@ public class RenderSection {
      * Returns the occlusion culling data which determines this chunk's connectedness on the visibility graph.
      */
     public long getVisibilityData() {
-        return this.visibilityData;
+        return this.disposed ? VisibilityEncoding.NULL : this.graph.getVisibilityData(this.id);
     }
 
     /**
@@ -11,19 +11,26 @@ import net.minecraft.world.phys.HitResult;
 import org.embeddedt.embeddium.impl.gl.device.CommandList;
 import org.embeddedt.embeddium.impl.gl.device.RenderDevice;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuildTraceRecorder;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuilder;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJob;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJobResult;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJobResultQueue;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJobTyped;
 import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkJobCollector;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderMeshingTask;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderSortTask;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderTask;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildPhase;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
 import org.embeddedt.embeddium.impl.render.chunk.lists.ChunkRenderList;
+import org.embeddedt.embeddium.impl.render.chunk.lists.SectionRebuildQueue;
 import org.embeddedt.embeddium.impl.render.chunk.lists.SortedRenderLists;
 import org.embeddedt.embeddium.impl.render.chunk.lists.VisibleChunkCollector;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.GraphDirection;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.OcclusionCuller;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SectionGraph;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegionManager;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
@@ -33,6 +40,7 @@ import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import org.embeddedt.embeddium.api.render.texture.SpriteUtil;
 import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
 import org.embeddedt.embeddium.impl.render.viewport.Viewport;
+import org.embeddedt.embeddium.impl.sodium.FlawlessFrames;
 import org.embeddedt.embeddium.impl.util.MathUtil;
 import org.embeddedt.embeddium.impl.util.iterator.ByteIterator;
 import org.embeddedt.embeddium.impl.world.WorldSlice;
@@ -48,6 +56,7 @@ import net.minecraft.util.Mth;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.LevelChunkSection;
 import net.minecraft.world.phys.Vec3;
+import net.neoforged.fml.loading.FMLPaths;
 import org.apache.commons.lang3.ArrayUtils;
 import org.embeddedt.embeddium.api.ChunkMeshEvent;
 import org.embeddedt.embeddium.impl.render.ShaderModBridge;
@@ -55,8 +64,16 @@ import org.embeddedt.embeddium.impl.render.chunk.sorting.TranslucentQuadAnalyzer
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RenderSectionManager {
     private final ChunkBuilder builder;
@@ -67,8 +84,9 @@ public class RenderSectionManager {
     private final ClonedChunkSectionCache sectionCache;
 
     private final Long2ReferenceMap<RenderSection> sectionByPosition = new Long2ReferenceOpenHashMap<>();
+    private final SectionGraph sectionGraph = new SectionGraph();
 
-    private final ConcurrentLinkedDeque<ChunkJobResult<ChunkBuildOutput>> buildResults = new ConcurrentLinkedDeque<>();
+    private final ChunkJobResultQueue<ChunkBuildOutput> buildResults = new ChunkJobResultQueue<>();
     private final ConcurrentLinkedDeque<Runnable> asyncSubmittedTasks = new ConcurrentLinkedDeque<>();
 
     private final ChunkRenderer chunkRenderer;
@@ -77,6 +95,12 @@ public class RenderSectionManager {
 
     private final ReferenceSet<RenderSection> sectionsWithGlobalEntities = new ReferenceOpenHashSet<>();
 
+    /**
+     * The sections which have a non-important job waiting in the build queue, mapped to the job's details. These are
+     * re-validated every frame so that jobs which no longer matter can be evicted.
+     */
+    private final Reference2ReferenceLinkedOpenHashMap<RenderSection, QueuedJob> sectionsWithQueuedJobs = new Reference2ReferenceLinkedOpenHashMap<>();
+
     private final OcclusionCuller occlusionCuller;
 
     private final int renderDistance;
@@ -87,27 +111,47 @@ public class RenderSectionManager {
     private SortedRenderLists renderLists;
 
     @NotNull
-    private Map<ChunkUpdateType, ArrayDeque<RenderSection>> rebuildLists;
+    private Map<ChunkUpdateType, SectionRebuildQueue> rebuildLists;
 
     private int lastUpdatedFrame;
 
+    // The number of graph searches whose results have been published, which is used to measure how long a section
+    // has been out of reach independently of the frame rate
+    private int graphUpdateCount;
+
+    // Which of each region's two render lists the current render lists were built into
+    private int renderListIndex;
+
+    // The graph search running on the culling thread, if any, along with the frame it was started for and where its
+    // results will be collected. Nothing which the search reads may be changed until it has been finished.
+    private @Nullable ExecutorService cullingExecutor;
+    private @Nullable Future<?> pendingCull;
+    private @Nullable VisibleChunkCollector pendingCullVisitor;
+    private int pendingCullFrame;
+
     private boolean needsUpdate;
 
     private @Nullable BlockPos lastCameraPosition;
     private Vec3 cameraPosition = Vec3.ZERO;
 
+    private @Nullable ChunkBuildTraceRecorder traceRecorder;
+
     private final boolean translucencySorting;
 
     public RenderSectionManager(ClientLevel world, int renderDistance, CommandList commandList) {
         ChunkVertexType vertexType = Embeddium.canUseVanillaVertices() ? ChunkMeshFormats.VANILLA_LIKE : ChunkMeshFormats.COMPACT;
 
-        this.chunkRenderer = new DefaultChunkRenderer(RenderDevice.INSTANCE, vertexType);
+        this.chunkRenderer = createChunkRenderer(vertexType);
 
         this.vertexType = vertexType;
 
         this.world = world;
         this.builder = new ChunkBuilder(world, vertexType);
 
+        if (Embeddium.options().advanced.recordChunkBuildTrace) {
+            this.traceRecorder = createTraceRecorder();
+        }
+
         this.needsUpdate = true;
         this.renderDistance = renderDistance;
 
@@ -115,17 +159,25 @@ public class RenderSectionManager {
         this.sectionCache = new ClonedChunkSectionCache(this.world);
 
         this.renderLists = SortedRenderLists.empty();
-        this.occlusionCuller = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.sectionByPosition), this.world);
+        this.occlusionCuller = new OcclusionCuller(Long2ReferenceMaps.unmodifiable(this.sectionByPosition), this.sectionGraph, this.world);
 
         this.rebuildLists = new EnumMap<>(ChunkUpdateType.class);
 
         for (var type : ChunkUpdateType.values()) {
-            this.rebuildLists.put(type, new ArrayDeque<>());
+            this.rebuildLists.put(type, new SectionRebuildQueue(0.0f, 0.0f, 0.0f));
         }
 
         this.translucencySorting = Embeddium.canApplyTranslucencySorting();
     }
 
+    private static ChunkRenderer createChunkRenderer(ChunkVertexType vertexType) {
+        if (Embeddium.options().advanced.useIndirectDrawing && IndirectChunkRenderer.isSupported(RenderDevice.INSTANCE)) {
+            return new IndirectChunkRenderer(RenderDevice.INSTANCE, vertexType);
+        }
+
+        return new DefaultChunkRenderer(RenderDevice.INSTANCE, vertexType);
+    }
+
     public void runAsyncTasks() {
         Runnable task;
 
@@ -135,13 +187,41 @@ public class RenderSectionManager {
     }
 
     public void update(Camera camera, Viewport viewport, int frame, boolean spectator) {
+        this.finishPendingCulling();
+
+        var previousCameraPosition = this.lastCameraPosition != null ? this.cameraPosition : null;
+
         this.lastCameraPosition = camera.getBlockPosition();
         this.cameraPosition = camera.getPosition();
 
-        this.createTerrainRenderList(camera, viewport, frame, spectator);
+        if (this.shouldCullAsync(previousCameraPosition)) {
+            this.startAsyncTerrainRenderList(camera, viewport, frame, spectator);
+        } else {
+            this.createTerrainRenderList(camera, viewport, frame, spectator);
+            this.lastUpdatedFrame = frame;
+        }
 
         this.needsUpdate = false;
-        this.lastUpdatedFrame = frame;
+    }
+
+    /**
+     * How much wider the frustum used by an asynchronous search is than the real one. The results of the search are
+     * drawn one frame after the camera they were found for, and this covers the camera turning by several degrees in
+     * that time.
+     */
+    private static final float ASYNC_CULLING_FRUSTUM_SCALE = 1.25f;
+
+    private static final double ASYNC_CULLING_MAX_CAMERA_MOVEMENT_SQ = Mth.square(16.0);
+
+    private boolean shouldCullAsync(@Nullable Vec3 previousCameraPosition) {
+        if (!Embeddium.options().performance.useAsyncOcclusionCulling || FlawlessFrames.isActive()) {
+            return false;
+        }
+
+        // The results of an asynchronous search are shown one frame late, which is only hidden by the wider frustum
+        // if the camera has not moved far. After a teleport (or on the first frame) the search must be done now.
+        return previousCameraPosition != null &&
+                previousCameraPosition.distanceToSqr(this.cameraPosition) < ASYNC_CULLING_MAX_CAMERA_MOVEMENT_SQ;
     }
 
     private void checkTranslucencyChange() {
@@ -205,7 +285,7 @@ public class RenderSectionManager {
                 if (cameraChangedSection || section.isAlignedWithSectionOnGrid(camSectionX, camSectionY, camSectionZ)) {
                     section.setPendingUpdate(update);
                     // Inject it into the rebuild lists
-                    (update == ChunkUpdateType.IMPORTANT_SORT ? importantSortRebuildList : sortRebuildList).add(section);
+                    (update == ChunkUpdateType.IMPORTANT_SORT ? importantSortRebuildList : sortRebuildList).add(section, true);
 
                     section.lastCameraX = cameraPosition.x;
                     section.lastCameraY = cameraPosition.y;
@@ -218,12 +298,71 @@ public class RenderSectionManager {
     private void createTerrainRenderList(Camera camera, Viewport viewport, int frame, boolean spectator) {
         this.resetRenderLists();
 
-        final var searchDistance = this.getSearchDistance();
-        final var useOcclusionCulling = this.shouldUseOcclusionCulling(camera, spectator);
+        var visitor = new VisibleChunkCollector(frame, 0, (float) this.cameraPosition.x, (float) this.cameraPosition.y, (float) this.cameraPosition.z);
+
+        this.createSearchTask(camera, viewport, frame, spectator, visitor)
+                .run();
+
+        this.renderListIndex = 0;
+        this.publishRenderLists(visitor);
+    }
+
+    /**
+     * Starts a graph search on the culling thread, whose results will be used from the next frame onwards. The render
+     * lists it builds go into the other set of render lists from the ones being drawn, and it uses a wider frustum to
+     * hide the lag of a frame if the camera turns.
+     */
+    private void startAsyncTerrainRenderList(Camera camera, Viewport viewport, int frame, boolean spectator) {
+        int renderListIndex = this.renderListIndex ^ 1;
+
+        var visitor = new VisibleChunkCollector(frame, renderListIndex, (float) this.cameraPosition.x, (float) this.cameraPosition.y, (float) this.cameraPosition.z);
+        var task = this.createSearchTask(camera, viewport.widen(ASYNC_CULLING_FRUSTUM_SCALE), frame, spectator, visitor);
+
+        if (this.cullingExecutor == null) {
+            this.cullingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                var thread = new Thread(runnable, "Embeddium Culling Thread");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.pendingCull = this.cullingExecutor.submit(task);
+        this.pendingCullVisitor = visitor;
+        this.pendingCullFrame = frame;
+    }
+
+    /**
+     * Waits for the graph search running on the culling thread (if any) to finish, and makes its results current.
+     * This must be called before anything which the search reads from is changed, such as adding or removing sections,
+     * or updating their visibility.
+     */
+    public void finishPendingCulling() {
+        if (this.pendingCull == null) {
+            return;
+        }
+
+        var visitor = Objects.requireNonNull(this.pendingCullVisitor);
+
+        try {
+            this.pendingCull.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the graph search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Exception thrown while searching for visible chunks", e.getCause());
+        } finally {
+            this.pendingCull = null;
+            this.pendingCullVisitor = null;
+        }
+
+        this.renderListIndex ^= 1;
+        this.lastUpdatedFrame = this.pendingCullFrame;
 
-        var visitor = new VisibleChunkCollector(frame);
+        this.publishRenderLists(visitor);
+    }
 
-        this.occlusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, frame);
+    private void publishRenderLists(VisibleChunkCollector visitor) {
+        this.graphUpdateCount++;
 
         this.renderLists = visitor.createRenderLists();
         this.rebuildLists = visitor.getRebuildLists();
@@ -231,6 +370,43 @@ public class RenderSectionManager {
         this.checkTranslucencyChange();
     }
 
+    // Everything which depends on the world or the game options is read here, so that the returned task can be run on
+    // any thread
+    private Runnable createSearchTask(Camera camera, Viewport viewport, int frame, boolean spectator, VisibleChunkCollector visitor) {
+        final var searchDistance = this.getSearchDistance();
+        final var useOcclusionCulling = this.shouldUseOcclusionCulling(camera, spectator);
+
+        final var options = Embeddium.options().performance;
+        final var useOcclusionRasterizer = options.useOcclusionRasterizer;
+        final var useHorizonCulling = options.useHorizonCulling;
+        final var useIncrementalOcclusionCulling = options.useIncrementalOcclusionCulling;
+
+        final var cameraPosition = this.cameraPosition;
+
+        this.occlusionCuller.setParallelSearch(options.useParallelOcclusionCulling);
+        this.occlusionCuller.setSubFaceSearch(options.useSubSectionOcclusionCulling);
+
+        return () -> {
+            if (useOcclusionRasterizer) {
+                this.occlusionCuller.prepareOccluders(viewport, cameraPosition.x, cameraPosition.y, cameraPosition.z);
+            } else {
+                this.occlusionCuller.clearOccluders();
+            }
+
+            if (useHorizonCulling) {
+                this.occlusionCuller.prepareHorizon(cameraPosition.x, cameraPosition.y, cameraPosition.z);
+            } else {
+                this.occlusionCuller.clearHorizon();
+            }
+
+            if (useIncrementalOcclusionCulling) {
+                this.occlusionCuller.findVisibleIncremental(visitor, viewport, searchDistance, useOcclusionCulling, frame);
+            } else {
+                this.occlusionCuller.findVisible(visitor, viewport, searchDistance, useOcclusionCulling, frame);
+            }
+        };
+    }
+
     private float getSearchDistance() {
         float distance;
 
@@ -266,6 +442,8 @@ public class RenderSectionManager {
     }
 
     public void onSectionAdded(int x, int y, int z) {
+        this.finishPendingCulling();
+
         long key = SectionPos.asLong(x, y, z);
 
         if (this.sectionByPosition.containsKey(key)) {
@@ -274,7 +452,7 @@ public class RenderSectionManager {
 
         RenderRegion region = this.regions.createForChunk(x, y, z);
 
-        RenderSection renderSection = new RenderSection(region, x, y, z);
+        RenderSection renderSection = new RenderSection(region, x, y, z, this.sectionGraph);
         region.addSection(renderSection);
 
         this.sectionByPosition.put(key, renderSection);
@@ -290,11 +468,14 @@ public class RenderSectionManager {
         }
 
         this.connectNeighborNodes(renderSection);
+        this.occlusionCuller.invalidate();
 
         this.needsUpdate = true;
     }
 
     public void onSectionRemoved(int x, int y, int z) {
+        this.finishPendingCulling();
+
         RenderSection section = this.sectionByPosition.remove(SectionPos.asLong(x, y, z));
 
         if (section == null) {
@@ -312,6 +493,7 @@ public class RenderSectionManager {
 
         section.delete();
 
+        this.occlusionCuller.invalidate();
         this.needsUpdate = true;
     }
 
@@ -364,23 +546,33 @@ public class RenderSectionManager {
             return false;
         }
 
-        return render.getLastVisibleFrame() == this.lastUpdatedFrame;
+        int frame = render.getLastVisibleFrame();
+
+        // While a search is running on the culling thread, sections may already be marked with its frame
+        return frame == this.lastUpdatedFrame || (this.pendingCull != null && frame == this.pendingCullFrame);
     }
 
     public void updateChunks(boolean updateImmediately) {
         this.sectionCache.cleanup();
         this.regions.update();
 
-        var blockingRebuilds = new ChunkJobCollector(Integer.MAX_VALUE, this.buildResults::add);
-        var deferredRebuilds = new ChunkJobCollector(this.builder.getSchedulingBudget(), this.buildResults::add);
+        this.builder.update();
+
+        if (this.traceRecorder != null) {
+            this.traceRecorder.beginFrame(this.lastUpdatedFrame, this.cameraPosition.x, this.cameraPosition.y, this.cameraPosition.z);
+        }
+
+        this.evictStaleJobs();
+
+        var blockingRebuilds = new ChunkJobCollector<ChunkBuildOutput>(Integer.MAX_VALUE, this.buildResults::add);
+        var deferredRebuilds = new ChunkJobCollector<ChunkBuildOutput>(this.builder.getSchedulingBudget(), this.buildResults::add);
 
         this.submitRebuildTasks(blockingRebuilds, ChunkUpdateType.IMPORTANT_REBUILD);
         this.submitRebuildTasks(blockingRebuilds, ChunkUpdateType.IMPORTANT_SORT);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.REBUILD);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredRebuilds, ChunkUpdateType.INITIAL_BUILD);
 
-        // Count sort tasks as requiring a quarter of the resources of a mesh task
-        var deferredSorts = new ChunkJobCollector(Math.max(4, this.builder.getSchedulingBudget() * 4), this.buildResults::add);
+        var deferredSorts = new ChunkJobCollector<ChunkBuildOutput>(this.builder.getSortSchedulingBudget(), this.buildResults::add);
         this.submitRebuildTasks(updateImmediately ? blockingRebuilds : deferredSorts, ChunkUpdateType.SORT);
 
         blockingRebuilds.awaitCompletion(this.builder);
@@ -420,6 +612,7 @@ public class RenderSectionManager {
 
             if (job != null && result.buildTime >= result.render.getLastSubmittedFrame()) {
                 result.render.setBuildCancellationToken(null);
+                this.sectionsWithQueuedJobs.remove(result.render);
             }
 
             result.render.setLastBuiltFrame(result.buildTime);
@@ -437,7 +630,13 @@ public class RenderSectionManager {
     }
 
     private void updateSectionInfo(RenderSection render, BuiltSectionInfo info) {
-        render.setInfo(info);
+        this.finishPendingCulling();
+
+        if (render.setInfo(info)) {
+            this.occlusionCuller.invalidate();
+        }
+
+        this.occlusionCuller.onSectionInfoChanged(render.getChunkX(), render.getChunkZ());
 
         if (info == null || ArrayUtils.isEmpty(info.globalBlockEntities)) {
             this.sectionsWithGlobalEntities.remove(render);
@@ -466,18 +665,116 @@ public class RenderSectionManager {
     }
 
     private ArrayList<ChunkBuildOutput> collectChunkBuildResults() {
-        ArrayList<ChunkBuildOutput> results = new ArrayList<>();
-        ChunkJobResult<ChunkBuildOutput> result;
+        ArrayList<ChunkJobResult<ChunkBuildOutput>> drained = new ArrayList<>();
+        this.buildResults.drainTo(drained);
+
+        ArrayList<ChunkBuildOutput> results = new ArrayList<>(drained.size());
 
-        while ((result = this.buildResults.poll()) != null) {
+        for (var result : drained) {
             results.add(result.unwrap());
         }
 
         return results;
     }
 
-    private void submitRebuildTasks(ChunkJobCollector collector, ChunkUpdateType type) {
+    /**
+     * The number of graph updates a section can go without being reached by the search before any job it has waiting
+     * in the queue is evicted. A small grace period avoids throwing away work for sections which only flicker out of
+     * reach for an update or two.
+     */
+    private static final int STALE_JOB_GRAPH_UPDATES = 10;
+
+    private static final class QueuedJob {
+        private final ChunkUpdateType type;
+
+        // The graph update in which the section was last reachable from the camera
+        private int lastReachedUpdate;
+
+        private QueuedJob(ChunkUpdateType type, int lastReachedUpdate) {
+            this.type = type;
+            this.lastReachedUpdate = lastReachedUpdate;
+        }
+    }
+
+    /**
+     * Checks every job still waiting in the queue against the latest state of its section, and evicts jobs which no
+     * longer need to run:
+     * <ul>
+     *     <li>The section was removed, so the job is already cancelled but still occupies the queue.</li>
+     *     <li>The section has received another update since the job was submitted. The job is working with an old copy
+     *     of the world, so it is dropped and the section is resubmitted with fresh data instead.</li>
+     *     <li>The section has not been reachable from the camera for a while (e.g. it has been left behind while the
+     *     player travels quickly). The job is dropped and its update is put back on the section, so that it will be
+     *     rescheduled with the correct priority if the section can be reached again. Sections which are reachable but
+     *     outside the frustum keep their jobs, as the search would only submit them again.</li>
+     * </ul>
+     * Jobs which a worker has already picked up are left alone.
+     */
+    private void evictStaleJobs() {
+        var it = this.sectionsWithQueuedJobs.reference2ReferenceEntrySet().fastIterator();
+
+        while (it.hasNext()) {
+            var entry = it.next();
+
+            var section = entry.getKey();
+            var queued = entry.getValue();
+            var type = queued.type;
+
+            if (!(section.getBuildCancellationToken() instanceof ChunkJob job) || job.isStarted()) {
+                it.remove();
+                continue;
+            }
+
+            boolean stale;
+
+            if (section.isDisposed() || job.isCancelled()) {
+                stale = true;
+            } else if (section.getPendingUpdate() != null) {
+                stale = true;
+            } else {
+                if (this.wasReachedByLastSearch(section)) {
+                    queued.lastReachedUpdate = this.graphUpdateCount;
+                }
+
+                stale = this.graphUpdateCount - queued.lastReachedUpdate > STALE_JOB_GRAPH_UPDATES;
+            }
+
+            if (!stale || !this.builder.tryEvictTask(job)) {
+                continue;
+            }
+
+            it.remove();
+
+            if (!section.isDisposed()) {
+                section.setBuildCancellationToken(null);
+
+                // Put the update back on the section so that it will be picked up again by the next graph search
+                var update = ChunkUpdateType.getPromotionUpdateType(section.getPendingUpdate(), type);
+
+                if (update != null) {
+                    section.setPendingUpdate(update);
+                }
+
+                this.needsUpdate = true;
+            }
+        }
+    }
+
+    private boolean wasReachedByLastSearch(RenderSection section) {
+        int visibleFrame = section.getLastVisibleFrame();
+        int reachedFrame = section.getLastReachedFrame();
+
+        if (visibleFrame == this.lastUpdatedFrame || reachedFrame == this.lastUpdatedFrame) {
+            return true;
+        }
+
+        // While a search is running on the culling thread, sections may already be marked with its frame
+        return this.pendingCull != null && (visibleFrame == this.pendingCullFrame || reachedFrame == this.pendingCullFrame);
+    }
+
+    private void submitRebuildTasks(ChunkJobCollector<ChunkBuildOutput> collector, ChunkUpdateType type) {
         var queue = this.rebuildLists.get(type);
+        var jobs = new ArrayList<ChunkJobTyped<?, ChunkBuildOutput>>();
 
         while (!queue.isEmpty() && collector.canOffer()) {
             RenderSection section = queue.remove();
@@ -493,7 +790,7 @@ public class RenderSectionManager {
             }
 
             int frame = this.lastUpdatedFrame;
-            ChunkBuilderTask<ChunkBuildOutput> task = type.isSort() ? this.createSortTask(section, frame) : this.createRebuildTask(section, frame);
+            ChunkBuilderTask<ChunkBuildOutput> task = type.isSort() ? this.createSortTask(section, frame) : this.createRebuildTask(section, frame, type);
 
             if (task == null && type.isSort()) {
                 // Ignore sorts that became invalid
@@ -501,12 +798,22 @@ public class RenderSectionManager {
                 continue;
             }
 
+            ChunkJobTyped<?, ChunkBuildOutput> job = null;
+
             if (task != null) {
-                var job = this.builder.scheduleTask(task, type.isImportant(), collector::onJobFinished);
+                job = this.builder.createJob(task, type, collector::onJobFinished);
                 collector.addSubmittedJob(job);
 
+                if (this.traceRecorder != null) {
+                    this.traceRecorder.recordSubmit(job, section.getChunkX(), section.getChunkY(), section.getChunkZ(), type);
+                }
+
                 section.setBuildCancellationToken(job);
 
+                if (!type.isImportant()) {
+                    this.sectionsWithQueuedJobs.put(section, new QueuedJob(type, this.graphUpdateCount));
+                }
+
                 if (!type.isSort()) {
                     // Prevent further sorts from being performed on this section
                     section.setTranslucencySortStates(Collections.emptyMap());
@@ -520,17 +827,43 @@ public class RenderSectionManager {
 
             section.setLastSubmittedFrame(frame);
             section.setPendingUpdate(null);
+
+            if (job == null) {
+                continue;
+            }
+
+            // The render thread will wait for important jobs, so each one is handed to the workers as soon as it has
+            // been created rather than after the world has been copied for every other section
+            if (type.isImportant()) {
+                this.builder.scheduleJobs(List.of(job));
+            } else {
+                jobs.add(job);
+            }
         }
+
+        // Queue everything else at once, so that the workers are only woken up once
+        this.builder.scheduleJobs(jobs);
     }
 
-    public @Nullable ChunkBuilderMeshingTask createRebuildTask(RenderSection render, int frame) {
+    public @Nullable ChunkBuilderMeshingTask createRebuildTask(RenderSection render, int frame, ChunkUpdateType type) {
+        long prepareStart = System.nanoTime();
+
         ChunkRenderContext context = WorldSlice.prepare(this.world, render.getPosition(), this.sectionCache);
 
+        this.builder.getRenderThreadTimings().record(ChunkBuildPhase.PREPARE, prepareStart);
+
         if (context == null) {
             return null;
         }
 
-        return new ChunkBuilderMeshingTask(render, context, frame).withCameraPosition(this.cameraPosition);
+        var task = new ChunkBuilderMeshingTask(render, context, frame).withCameraPosition(this.cameraPosition);
+
+        // The render thread will be waiting on important rebuilds, so spread them across the workers to finish sooner
+        if (type == ChunkUpdateType.IMPORTANT_REBUILD && Embeddium.options().performance.splitImportantChunkUpdates) {
+            task.withParallelExecutor(this.builder);
+        }
+
+        return task;
     }
 
     public ChunkBuilderSortTask createSortTask(RenderSection render, int frame) {
@@ -553,8 +886,22 @@ public class RenderSectionManager {
     }
 
     public void destroy() {
+        this.finishPendingCulling();
+
+        if (this.cullingExecutor != null) {
+            this.cullingExecutor.shutdown();
+        }
+
         this.builder.shutdown(); // stop all the workers, and cancel any tasks
 
+        if (Embeddium.options().advanced.exportChunkBuildTimings) {
+            this.exportBuildTimings();
+        }
+
+        if (this.traceRecorder != null) {
+            this.closeTraceRecorder();
+        }
+
         for (var result : this.collectChunkBuildResults()) {
             result.delete(); // delete resources for any pending tasks (including those that were cancelled)
         }
@@ -568,6 +915,41 @@ public class RenderSectionManager {
         }
     }
 
+    private void exportBuildTimings() {
+        String fileName = "embeddium-chunk-timings-" + LocalDateTime.now().format(TIMINGS_FILE_DATE_FORMAT) + ".csv";
+        Path path = FMLPaths.GAMEDIR.get().resolve("logs").resolve(fileName);
+
+        try {
+            this.builder.exportTimings(path);
+            Embeddium.logger().info("Exported chunk build timings to {}", path);
+        } catch (IOException e) {
+            Embeddium.logger().warn("Failed to export chunk build timings", e);
+        }
+    }
+
+    private static @Nullable ChunkBuildTraceRecorder createTraceRecorder() {
+        String fileName = "embeddium-chunk-trace-" + LocalDateTime.now().format(TIMINGS_FILE_DATE_FORMAT) + ".bin.gz";
+        Path path = FMLPaths.GAMEDIR.get().resolve("logs").resolve(fileName);
+
+        try {
+            return new ChunkBuildTraceRecorder(path);
+        } catch (IOException e) {
+            Embeddium.logger().warn("Failed to start recording chunk build trace", e);
+            return null;
+        }
+    }
+
+    private void closeTraceRecorder() {
+        try {
+            this.traceRecorder.close();
+            Embeddium.logger().info("Saved chunk build trace to {}", this.traceRecorder.getPath());
+        } catch (IOException e) {
+            Embeddium.logger().warn("Failed to save chunk build trace", e);
+        }
+
+        this.traceRecorder = null;
+    }
+
     public int getTotalSections() {
         return this.sectionByPosition.size();
     }
@@ -616,6 +998,8 @@ public class RenderSectionManager {
         }
     }
 
+    private static final DateTimeFormatter TIMINGS_FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss");
+
     private static final float NEARBY_REBUILD_DISTANCE = Mth.square(16.0f);
 
     private boolean shouldPrioritizeRebuild(RenderSection section) {
@@ -766,6 +1150,21 @@ public class RenderSectionManager {
                 this.builder.getScheduledJobCount(), this.builder.getBusyThreadCount(), this.builder.getTotalThreadCount())
         );
 
+        list.addAll(this.builder.getDebugStrings());
+
+        list.add(String.format("Occlusion Graph: Visited=%d (%s)", this.occlusionCuller.getVisitedSectionCount(),
+                Embeddium.options().performance.useSubSectionOcclusionCulling ? "sub-faces" : "faces"));
+
+        if (Embeddium.options().performance.useOcclusionRasterizer) {
+            list.add(String.format("Occluders: %d (%d chunks hidden)",
+                    this.occlusionCuller.getOccluderCount(), this.occlusionCuller.getOccludedSectionCount()));
+        }
+
+        if (Embeddium.options().performance.useHorizonCulling) {
+            list.add(String.format("Horizon: %d columns (%d chunks hidden)",
+                    this.occlusionCuller.getHorizonColumnCount(), this.occlusionCuller.getBelowHorizonSectionCount()));
+        }
+
         list.add(String.format("Chunk Queues: U=%02d (P0=%03d | P1=%03d | P2=%03d)",
                 this.buildResults.size(),
                 this.rebuildLists.get(ChunkUpdateType.IMPORTANT_REBUILD).size(),
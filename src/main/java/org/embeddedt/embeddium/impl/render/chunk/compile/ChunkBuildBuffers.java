@@ -7,6 +7,7 @@ import org.embeddedt.embeddium.impl.render.chunk.compile.buffers.BakedChunkModel
 import org.embeddedt.embeddium.impl.render.chunk.compile.buffers.ChunkModelBuilder;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SectionBounds;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.material.Material;
@@ -58,6 +59,16 @@ public class ChunkBuildBuffers {
         return this.builders.get(pass);
     }
 
+    /**
+     * Appends the geometry built into another set of buffers after the geometry in these buffers. This is used to
+     * merge the results of meshing a section in several pieces. Both must have been initialized for the same section.
+     */
+    public void append(ChunkBuildBuffers other) {
+        for (var entry : this.builders.reference2ReferenceEntrySet()) {
+            entry.getValue().append(other.builders.get(entry.getKey()));
+        }
+    }
+
     /**
      * Creates immutable baked chunk meshes from all non-empty scratch buffers. This is used after all blocks
      * have been rendered to pass the finished meshes over to the graphics card. This function can be called multiple
@@ -126,6 +137,33 @@ public class ChunkBuildBuffers {
         return new BuiltSectionMeshParts(mergedBuffer, mergedIndexBuffer, sortState, vertexRanges);
     }
 
+    /**
+     * {@return the bounds of all the geometry which has been built, packed as described by {@link SectionBounds}}
+     */
+    public int getGeometryBounds() {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+
+        for (var builder : this.builders.values()) {
+            for (ModelQuadFacing facing : ModelQuadFacing.VALUES) {
+                var buffer = builder.getVertexBuffer(facing);
+
+                if (buffer.isEmpty()) {
+                    continue;
+                }
+
+                minX = Math.min(minX, buffer.getMinX());
+                minY = Math.min(minY, buffer.getMinY());
+                minZ = Math.min(minZ, buffer.getMinZ());
+                maxX = Math.max(maxX, buffer.getMaxX());
+                maxY = Math.max(maxY, buffer.getMaxY());
+                maxZ = Math.max(maxZ, buffer.getMaxZ());
+            }
+        }
+
+        return SectionBounds.fromVertexBounds(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
     public void destroy() {
         for (var builder : this.builders.values()) {
             builder.destroy();
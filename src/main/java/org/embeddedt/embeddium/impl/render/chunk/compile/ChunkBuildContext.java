@@ -5,29 +5,89 @@ import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientLevel;
 import org.embeddedt.embeddium.impl.render.chunk.compile.pipeline.BlockRenderCache;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildTimings;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 
+import java.util.ArrayList;
 import java.util.Collections;
 
 public class ChunkBuildContext {
     public final ChunkBuildBuffers buffers;
     public final BlockRenderCache cache;
+    public final ChunkBuildTimings timings;
     private final ObjectOpenHashSet<TextureAtlasSprite> additionalCapturedSprites;
     private boolean captureAdditionalSprites;
 
-    public ChunkBuildContext(ClientLevel world, ChunkVertexType vertexType) {
+    // Buffers for the extra slabs of sections which this context's thread splits across other workers. These are kept
+    // between builds, as allocating and freeing several full sets of buffers for every split section is expensive.
+    private final ArrayList<ChunkBuildBuffers> spareBuffers = new ArrayList<>();
+
+    public ChunkBuildContext(ClientLevel world, ChunkVertexType vertexType, ChunkBuildTimings timings) {
         this.buffers = new ChunkBuildBuffers(vertexType);
+        this.timings = timings;
         this.cache = new BlockRenderCache(Minecraft.getInstance(), world);
         this.additionalCapturedSprites = new ObjectOpenHashSet<>();
     }
 
+    private ChunkBuildContext(ChunkBuildTimings timings) {
+        this.buffers = null;
+        this.timings = timings;
+        this.cache = null;
+        this.additionalCapturedSprites = new ObjectOpenHashSet<>();
+    }
+
+    /**
+     * Creates a context without any buffers or render cache, which can only run jobs that do not build meshes. This
+     * allows the chunk builder to be run outside the game, such as by
+     * {@link org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuildTraceReplay}.
+     */
+    public static ChunkBuildContext createWithoutWorld(ChunkBuildTimings timings) {
+        return new ChunkBuildContext(timings);
+    }
+
     public void cleanup() {
-        this.buffers.destroy();
-        this.cache.cleanup();
+        if (this.buffers != null) {
+            this.buffers.destroy();
+        }
+
+        if (this.cache != null) {
+            this.cache.cleanup();
+        }
+
         this.additionalCapturedSprites.clear();
         this.captureAdditionalSprites = false;
     }
 
+    /**
+     * Takes a set of spare buffers, which must be returned with {@link #releaseSpareBuffers(ChunkBuildBuffers)} once
+     * their contents have been used. This must only be called by the thread which owns this context.
+     */
+    public ChunkBuildBuffers acquireSpareBuffers() {
+        if (this.spareBuffers.isEmpty()) {
+            return new ChunkBuildBuffers(this.buffers.getVertexType());
+        }
+
+        return this.spareBuffers.remove(this.spareBuffers.size() - 1);
+    }
+
+    public void releaseSpareBuffers(ChunkBuildBuffers buffers) {
+        this.spareBuffers.add(buffers);
+    }
+
+    /**
+     * Frees everything held by the context, including the spare buffers kept between builds. The context must not be
+     * used afterwards.
+     */
+    public void destroy() {
+        this.cleanup();
+
+        for (var buffers : this.spareBuffers) {
+            buffers.destroy();
+        }
+
+        this.spareBuffers.clear();
+    }
+
     public void setCaptureAdditionalSprites(boolean flag) {
         captureAdditionalSprites = flag;
         if(!flag) {
@@ -6,12 +6,17 @@ import org.jetbrains.annotations.Nullable;
 
 public final class GlobalChunkBuildContext {
     private static ChunkBuildContext mainThreadContext;
-    private static final Thread mainThread = ((MinecraftAccessor) Minecraft.getInstance()).embeddium$getGameThread();
+    @Nullable
+    private static final Thread mainThread = getGameThread();
 
     private GlobalChunkBuildContext() {}
 
+    /**
+     * Checks that the calling thread is the game thread. This does nothing when there is no game, such as when the
+     * chunk builder is run by {@link org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuildTraceReplay}.
+     */
     public static void setMainThread() {
-        if(mainThread != Thread.currentThread()) {
+        if(mainThread != null && mainThread != Thread.currentThread()) {
             throw new IllegalStateException("Global chunk build context captured wrong thread");
         }
     }
@@ -33,6 +38,12 @@ public final class GlobalChunkBuildContext {
         mainThreadContext = context;
     }
 
+    @Nullable
+    private static Thread getGameThread() {
+        var minecraft = Minecraft.getInstance();
+        return minecraft != null ? ((MinecraftAccessor) minecraft).embeddium$getGameThread() : null;
+    }
+
     public interface Holder {
         ChunkBuildContext embeddium$getGlobalContext();
     }
@@ -48,6 +48,17 @@ public class BakedChunkModelBuilder implements ChunkModelBuilder {
         }
     }
 
+    /**
+     * Appends the geometry which has been built by another builder for the same render pass.
+     */
+    public void append(BakedChunkModelBuilder other) {
+        for (int i = 0; i < this.vertexBuffers.length; i++) {
+            if (this.vertexBuffers[i] != null) {
+                this.vertexBuffers[i].append(other.vertexBuffers[i]);
+            }
+        }
+    }
+
     public void begin(BuiltSectionInfo.Builder renderData, int sectionIndex) {
         this.renderData = renderData;
 
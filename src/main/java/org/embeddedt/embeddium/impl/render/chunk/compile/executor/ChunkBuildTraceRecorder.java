@@ -0,0 +1,156 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntLinkedOpenHashMap;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the stream of jobs submitted to the chunk builder, so that their scheduling can later be replayed through a
+ * {@link ChunkBuilder} outside the game by {@link ChunkBuildTraceReplay}. For every frame, the trace holds the camera position and the time since recording
+ * started. For every job, it holds the section position and update type when it is submitted, and how long it waited
+ * and ran once it finishes (or that it was cancelled).
+ *
+ * <p>The world data captured for each job is not recorded. It refers to live block states and models, which only mean
+ * anything inside a running client, so the replay instead simulates each job with its recorded execution time, and
+ * cannot be used to measure changes to the mesher.</p>
+ *
+ * <p>The trace is a gzip-compressed stream of big-endian records, each starting with a one byte tag:</p>
+ * <ul>
+ *     <li>{@link #TAG_FRAME}: int frame, long nanos since start, float camera x/y/z</li>
+ *     <li>{@link #TAG_SUBMIT}: int job id, int section x/y/z, byte update type ordinal</li>
+ *     <li>{@link #TAG_COMPLETE}: int job id, long queue nanos, long execute nanos</li>
+ *     <li>{@link #TAG_CANCEL}: int job id</li>
+ * </ul>
+ *
+ * <p>This class is not thread-safe, and must only be used from the render thread.</p>
+ */
+public class ChunkBuildTraceRecorder implements AutoCloseable {
+    static final int MAGIC = 0x45434254; // "ECBT"
+    static final int VERSION = 1;
+
+    static final byte TAG_FRAME = 0;
+    static final byte TAG_SUBMIT = 1;
+    static final byte TAG_COMPLETE = 2;
+    static final byte TAG_CANCEL = 3;
+
+    private final Path path;
+    private final DataOutputStream out;
+
+    private final long startTime = System.nanoTime();
+
+    // Jobs which have been submitted but not yet finished, mapped to their ID in the trace
+    private final Reference2IntLinkedOpenHashMap<ChunkJobTyped<?, ?>> pendingJobs = new Reference2IntLinkedOpenHashMap<>();
+
+    private int nextJobId;
+
+    private boolean failed;
+
+    public ChunkBuildTraceRecorder(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        this.path = path;
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    /**
+     * Marks the start of a new frame. Any jobs which have finished since the last frame are written out first.
+     */
+    public void beginFrame(int frame, double cameraX, double cameraY, double cameraZ) {
+        this.flushFinishedJobs();
+
+        this.write(out -> {
+            out.writeByte(TAG_FRAME);
+            out.writeInt(frame);
+            out.writeLong(System.nanoTime() - this.startTime);
+            out.writeFloat((float) cameraX);
+            out.writeFloat((float) cameraY);
+            out.writeFloat((float) cameraZ);
+        });
+    }
+
+    public void recordSubmit(ChunkJobTyped<?, ?> job, int sectionX, int sectionY, int sectionZ, ChunkUpdateType type) {
+        int id = this.nextJobId++;
+        this.pendingJobs.put(job, id);
+
+        this.write(out -> {
+            out.writeByte(TAG_SUBMIT);
+            out.writeInt(id);
+            out.writeInt(sectionX);
+            out.writeInt(sectionY);
+            out.writeInt(sectionZ);
+            out.writeByte(type.ordinal());
+        });
+    }
+
+    private void flushFinishedJobs() {
+        var it = this.pendingJobs.reference2IntEntrySet().fastIterator();
+
+        while (it.hasNext()) {
+            var entry = it.next();
+
+            var job = entry.getKey();
+            int id = entry.getIntValue();
+
+            long executeTime = job.getExecuteTime();
+
+            if (executeTime >= 0) {
+                long queueTime = job.getQueueTime();
+
+                this.write(out -> {
+                    out.writeByte(TAG_COMPLETE);
+                    out.writeInt(id);
+                    out.writeLong(queueTime);
+                    out.writeLong(executeTime);
+                });
+            } else if (job.isCancelled()) {
+                this.write(out -> {
+                    out.writeByte(TAG_CANCEL);
+                    out.writeInt(id);
+                });
+            } else {
+                continue;
+            }
+
+            it.remove();
+        }
+    }
+
+    private void write(Writer writer) {
+        if (this.failed) {
+            return;
+        }
+
+        try {
+            writer.write(this.out);
+        } catch (IOException e) {
+            ChunkBuilder.LOGGER.warn("Failed to write chunk build trace, recording will stop", e);
+            this.failed = true;
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Writes out any remaining finished jobs and closes the trace. This should be called after the chunk builder has
+     * been shut down, so that every job has either finished or been cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        this.flushFinishedJobs();
+        this.out.close();
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,493 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
+import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderTask;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.TimingHistogram;
+import org.embeddedt.embeddium.impl.util.task.CancellationToken;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a trace written by {@link ChunkBuildTraceRecorder} through a {@link ChunkBuilder}, without a window, OpenGL
+ * context or game instance. The recorded jobs are fed to the builder frame-by-frame, in the same order and (unless
+ * {@code --fast} is given) at the same times as they were in game, and each frame goes through the same steps as
+ * {@link org.embeddedt.embeddium.impl.render.chunk.RenderSectionManager#updateChunks(boolean)}:
+ * <ul>
+ *     <li>{@link ChunkBuilder#update()} runs the worker pool controller and the scheduling budget controller</li>
+ *     <li>jobs which were cancelled in game are evicted from the queue, if no worker has started them yet</li>
+ *     <li>important jobs are submitted one at a time, and the rest in batches within the scheduling budgets, with
+ *     any that do not fit carried over to the next frame</li>
+ *     <li>the replaying thread waits on the important jobs through {@link ChunkJobCollector}, which runs other queued
+ *     jobs on it while it waits</li>
+ * </ul>
+ *
+ * <p>This is a replay of the scheduler only, and does not build any meshes. The trace does not hold the world each
+ * job was built from, as it refers to live block states and models which only exist inside a running client, so each
+ * job instead keeps its thread busy for as long as the original job ran. Changes to the mesher itself are therefore
+ * not reflected in the results. Changes to how jobs are queued, budgeted, run and waited on are, and the report shows
+ * throughput, how long jobs waited for the budget and in the queue, and how long the replaying thread stalled waiting
+ * for important jobs, so that they can be compared on machines without a GPU.</p>
+ *
+ * <p>Usage: {@code ChunkBuildTraceReplay <trace file> [--threads N] [--adaptive] [--fast]}</p>
+ */
+public class ChunkBuildTraceReplay {
+    /**
+     * The order in which each frame offers jobs of each type to the builder, which is the same as the render thread's.
+     */
+    private static final ChunkUpdateType[] SUBMIT_ORDER = {
+            ChunkUpdateType.IMPORTANT_REBUILD, ChunkUpdateType.IMPORTANT_SORT,
+            ChunkUpdateType.REBUILD, ChunkUpdateType.INITIAL_BUILD, ChunkUpdateType.SORT
+    };
+
+    /**
+     * The time between frames used after the end of a trace which is too short to measure it from.
+     */
+    private static final long DEFAULT_FRAME_TIME_NANOS = 16_666_667L;
+
+    private final List<Frame> frames;
+    private final Int2ObjectOpenHashMap<Completion> completions;
+    private final int jobCount;
+
+    private final int threadCount;
+    private final boolean adaptiveThreadCount;
+    private final boolean fast;
+
+    // Indexed by job ID. The start time is written by whichever thread runs the job, and read after it has finished.
+    private final long[] arrivalTimes, submitTimes, startTimes;
+    private final ChunkJobTyped<?, ?>[] jobs;
+    private final boolean[] cancelled;
+
+    // Recorded jobs which have not been given to the builder yet, indexed by update type
+    private final ArrayDeque<Submit>[] pending;
+
+    // Released once for every job which finishes
+    private final Semaphore finishedJobs = new Semaphore(0);
+
+    private final TimingHistogram stallTimes = new TimingHistogram();
+
+    private int submittedJobs;
+    private int evictedJobs;
+    private int droppedJobs;
+
+    @SuppressWarnings("unchecked")
+    private ChunkBuildTraceReplay(Trace trace, int threadCount, boolean adaptiveThreadCount, boolean fast) {
+        this.frames = trace.frames;
+        this.completions = trace.completions;
+        this.jobCount = trace.jobCount;
+        this.threadCount = threadCount;
+        this.adaptiveThreadCount = adaptiveThreadCount;
+        this.fast = fast;
+
+        this.arrivalTimes = new long[this.jobCount];
+        this.submitTimes = new long[this.jobCount];
+        this.startTimes = new long[this.jobCount];
+        this.jobs = new ChunkJobTyped<?, ?>[this.jobCount];
+        this.cancelled = new boolean[this.jobCount];
+
+        this.pending = new ArrayDeque[ChunkUpdateType.values().length];
+
+        for (int i = 0; i < this.pending.length; i++) {
+            this.pending[i] = new ArrayDeque<>();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ChunkBuildTraceReplay <trace file> [--threads N] [--adaptive] [--fast]");
+            System.exit(1);
+        }
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+        boolean adaptive = false;
+        boolean fast = false;
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--adaptive" -> adaptive = true;
+                case "--fast" -> fast = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        var trace = Trace.read(Path.of(args[0]));
+        var replay = new ChunkBuildTraceReplay(trace, threads, adaptive, fast);
+
+        replay.run(System.out);
+    }
+
+    private void run(PrintStream out) {
+        var builder = new ChunkBuilder(ChunkBuildContext::createWithoutWorld, this.threadCount, this.adaptiveThreadCount);
+
+        double[] averageExecuteTimes = this.getAverageExecuteTimes();
+        long averageFrameTime = this.getAverageFrameTime();
+
+        long start = System.nanoTime();
+
+        for (var frame : this.frames) {
+            if (!this.fast) {
+                waitUntil(start + frame.time);
+            }
+
+            this.replayFrame(builder, frame, averageExecuteTimes);
+        }
+
+        // Keep going at the average frame rate until every job which was held back by the budget has been submitted.
+        // This is paced even when replaying as fast as possible, as the budgets only grow as the queued jobs finish.
+        var emptyFrame = new Frame(0);
+
+        while (this.hasPendingJobs()) {
+            waitUntil(System.nanoTime() + averageFrameTime);
+
+            this.replayFrame(builder, emptyFrame, averageExecuteTimes);
+        }
+
+        // Let every remaining job finish before measuring the total time
+        this.finishedJobs.acquireUninterruptibly(this.submittedJobs - this.evictedJobs);
+
+        long elapsed = System.nanoTime() - start;
+
+        var debugStrings = builder.getDebugStrings();
+        int finalThreadCount = builder.getTotalThreadCount();
+
+        builder.shutdown();
+
+        this.printReport(out, elapsed, finalThreadCount, debugStrings);
+    }
+
+    private void replayFrame(ChunkBuilder builder, Frame frame, double[] averageExecuteTimes) {
+        builder.update();
+
+        for (int i = 0; i < frame.cancelled.size(); i++) {
+            int id = frame.cancelled.getInt(i);
+            var job = this.jobs[id];
+
+            this.cancelled[id] = true;
+
+            if (job != null && builder.tryEvictTask(job)) {
+                this.evictedJobs++;
+            }
+        }
+
+        long now = System.nanoTime();
+
+        for (var submit : frame.submitted) {
+            this.arrivalTimes[submit.id] = now;
+            this.pending[submit.type.ordinal()].add(submit);
+        }
+
+        var blockingJobs = new ChunkJobCollector<Long>(Integer.MAX_VALUE, this::onJobFinished);
+        var deferredRebuilds = new ChunkJobCollector<Long>(builder.getSchedulingBudget(), this::onJobFinished);
+        var deferredSorts = new ChunkJobCollector<Long>(builder.getSortSchedulingBudget(), this::onJobFinished);
+
+        int blockingCount = 0;
+
+        for (var type : SUBMIT_ORDER) {
+            ChunkJobCollector<Long> collector;
+
+            if (type.isImportant()) {
+                collector = blockingJobs;
+            } else {
+                collector = type.isSort() ? deferredSorts : deferredRebuilds;
+            }
+
+            int count = this.submitJobs(builder, collector, type, averageExecuteTimes);
+
+            if (collector == blockingJobs) {
+                blockingCount += count;
+            }
+        }
+
+        if (blockingCount == 0) {
+            return;
+        }
+
+        long stallStart = System.nanoTime();
+
+        blockingJobs.awaitCompletion(builder);
+
+        this.stallTimes.record(System.nanoTime() - stallStart);
+    }
+
+    private int submitJobs(ChunkBuilder builder, ChunkJobCollector<Long> collector, ChunkUpdateType type, double[] averageExecuteTimes) {
+        var queue = this.pending[type.ordinal()];
+        var batch = new ArrayList<ChunkJobTyped<?, Long>>();
+
+        int count = 0;
+
+        while (!queue.isEmpty() && collector.canOffer()) {
+            var submit = queue.poll();
+            int id = submit.id;
+
+            // The job was cancelled in game while it was still being held back here
+            if (this.cancelled[id]) {
+                this.droppedJobs++;
+                continue;
+            }
+
+            var completion = this.completions.get(id);
+
+            // Jobs which were cancelled in game never reported how long they take, so assume an average job
+            long executeTime = completion != null ? completion.executeTime : (long) averageExecuteTimes[type.ordinal()];
+
+            var job = builder.createJob(new ReplayTask(id, executeTime), type, collector::onJobFinished);
+            collector.addSubmittedJob(job);
+
+            this.jobs[id] = job;
+            this.submitTimes[id] = System.nanoTime();
+            this.submittedJobs++;
+
+            count++;
+
+            // Like the render thread, hand important jobs over as soon as they exist
+            if (type.isImportant()) {
+                builder.scheduleJobs(List.of(job));
+            } else {
+                batch.add(job);
+            }
+        }
+
+        builder.scheduleJobs(batch);
+
+        return count;
+    }
+
+    private void onJobFinished(ChunkJobResult<Long> result) {
+        this.finishedJobs.release();
+    }
+
+    private boolean hasPendingJobs() {
+        for (var queue : this.pending) {
+            if (!queue.isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void waitUntil(long time) {
+        long wait;
+
+        while ((wait = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private long getAverageFrameTime() {
+        if (this.frames.size() < 2) {
+            return DEFAULT_FRAME_TIME_NANOS;
+        }
+
+        return Math.max(1, this.frames.get(this.frames.size() - 1).time / (this.frames.size() - 1));
+    }
+
+    private double[] getAverageExecuteTimes() {
+        var types = ChunkUpdateType.values();
+
+        double[] total = new double[types.length];
+        int[] count = new int[types.length];
+
+        for (var frame : this.frames) {
+            for (var submit : frame.submitted) {
+                var completion = this.completions.get(submit.id);
+
+                if (completion != null) {
+                    total[submit.type.ordinal()] += completion.executeTime;
+                    count[submit.type.ordinal()]++;
+                }
+            }
+        }
+
+        double[] average = new double[types.length];
+
+        for (int i = 0; i < types.length; i++) {
+            average[i] = count[i] == 0 ? 0.0 : total[i] / count[i];
+        }
+
+        return average;
+    }
+
+    private void printReport(PrintStream out, long elapsed, int finalThreadCount, Collection<String> debugStrings) {
+        var budgetLatency = new TimingHistogram();
+        var regularLatency = new TimingHistogram();
+        var importantLatency = new TimingHistogram();
+        var recordedLatency = new TimingHistogram();
+
+        int ran = 0;
+
+        for (int id = 0; id < this.jobCount; id++) {
+            var job = this.jobs[id];
+
+            if (job == null || job.isCancelled()) {
+                continue;
+            }
+
+            ran++;
+
+            budgetLatency.record(this.submitTimes[id] - this.arrivalTimes[id]);
+            (job.getType().isImportant() ? importantLatency : regularLatency).record(this.startTimes[id] - this.submitTimes[id]);
+
+            var completion = this.completions.get(id);
+
+            if (completion != null) {
+                recordedLatency.record(completion.queueTime);
+            }
+        }
+
+        out.printf(Locale.ROOT, "Replayed %d jobs (%d evicted, %d dropped before submission) over %d frames in %.1f ms%n",
+                ran, this.evictedJobs, this.droppedJobs, this.frames.size(), elapsed / 1_000_000.0);
+        out.printf(Locale.ROOT, "Workers: %d at start, %d at end (%s)%n", this.threadCount, finalThreadCount,
+                this.adaptiveThreadCount ? "adaptive" : "fixed");
+        out.printf(Locale.ROOT, "Throughput: %.1f jobs/s%n", ran / (elapsed / 1_000_000_000.0));
+
+        printHistogram(out, "Wait for budget", budgetLatency);
+        printHistogram(out, "Queue latency (regular)", regularLatency);
+        printHistogram(out, "Queue latency (important)", importantLatency);
+        printHistogram(out, "Queue latency (as recorded)", recordedLatency);
+        printHistogram(out, "Stall per blocking frame", this.stallTimes);
+
+        out.printf(Locale.ROOT, "Total stall: %.1f ms%n", this.stallTimes.getTotalNanos() / 1_000_000.0);
+
+        for (var line : debugStrings) {
+            out.println(line);
+        }
+    }
+
+    private static void printHistogram(PrintStream out, String name, TimingHistogram histogram) {
+        out.printf(Locale.ROOT, "%s: n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f (ms)%n", name,
+                histogram.getTotalCount(),
+                histogram.getMeanNanos() / 1_000_000.0,
+                histogram.getValueAtPercentile(0.5) / 1_000_000.0,
+                histogram.getValueAtPercentile(0.9) / 1_000_000.0,
+                histogram.getValueAtPercentile(0.99) / 1_000_000.0,
+                histogram.getMaxNanos() / 1_000_000.0);
+    }
+
+    /**
+     * Stands in for a recorded job, by keeping the thread which runs it busy for as long as the original job ran.
+     */
+    private class ReplayTask extends ChunkBuilderTask<Long> {
+        private final int id;
+        private final long executeTime;
+
+        private ReplayTask(int id, long executeTime) {
+            this.id = id;
+            this.executeTime = executeTime;
+        }
+
+        @Override
+        public Long execute(ChunkBuildContext context, CancellationToken cancellationToken) {
+            long startTime = System.nanoTime();
+            ChunkBuildTraceReplay.this.startTimes[this.id] = startTime;
+
+            while (System.nanoTime() - startTime < this.executeTime) {
+                Thread.onSpinWait();
+            }
+
+            return startTime;
+        }
+    }
+
+    private record Submit(int id, ChunkUpdateType type) { }
+
+    private record Completion(long queueTime, long executeTime) { }
+
+    private static class Frame {
+        private final long time;
+
+        private final List<Submit> submitted = new ArrayList<>();
+        private final IntArrayList cancelled = new IntArrayList();
+
+        private Frame(long time) {
+            this.time = time;
+        }
+    }
+
+    private static class Trace {
+        private final List<Frame> frames = new ArrayList<>();
+        private final Int2ObjectOpenHashMap<Completion> completions = new Int2ObjectOpenHashMap<>();
+        private int jobCount;
+
+        private static Trace read(Path path) throws IOException {
+            var trace = new Trace();
+            var types = ChunkUpdateType.values();
+
+            try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+                if (in.readInt() != ChunkBuildTraceRecorder.MAGIC) {
+                    throw new IOException("Not a chunk build trace");
+                }
+
+                int version = in.readInt();
+
+                if (version != ChunkBuildTraceRecorder.VERSION) {
+                    throw new IOException("Unsupported trace version " + version);
+                }
+
+                // Anything recorded before the first frame marker is attributed to a frame at time zero
+                Frame frame = new Frame(0);
+                trace.frames.add(frame);
+
+                while (true) {
+                    byte tag;
+
+                    try {
+                        tag = in.readByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    switch (tag) {
+                        case ChunkBuildTraceRecorder.TAG_FRAME -> {
+                            in.readInt(); // frame number
+                            frame = new Frame(in.readLong());
+                            in.readFloat(); // camera position
+                            in.readFloat();
+                            in.readFloat();
+
+                            trace.frames.add(frame);
+                        }
+                        case ChunkBuildTraceRecorder.TAG_SUBMIT -> {
+                            int id = in.readInt();
+                            in.readInt(); // section position
+                            in.readInt();
+                            in.readInt();
+                            var type = types[in.readByte()];
+
+                            frame.submitted.add(new Submit(id, type));
+                            trace.jobCount = Math.max(trace.jobCount, id + 1);
+                        }
+                        case ChunkBuildTraceRecorder.TAG_COMPLETE -> {
+                            int id = in.readInt();
+                            long queueTime = in.readLong();
+                            long executeTime = in.readLong();
+
+                            trace.completions.put(id, new Completion(queueTime, executeTime));
+                        }
+                        case ChunkBuildTraceRecorder.TAG_CANCEL -> frame.cancelled.add(in.readInt());
+                        default -> throw new IOException("Unknown record tag " + tag);
+                    }
+                }
+            }
+
+            return trace;
+        }
+    }
+}
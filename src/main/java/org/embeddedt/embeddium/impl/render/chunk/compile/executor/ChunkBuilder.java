@@ -1,8 +1,13 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
 
 import org.embeddedt.embeddium.impl.Embeddium;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderTask;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildPhase;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildTimings;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildTimingsExporter;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.TimingHistogram;
 import org.embeddedt.embeddium.impl.render.chunk.vertex.format.ChunkVertexType;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.util.Mth;
@@ -11,10 +16,15 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.embeddedt.embeddium.impl.render.chunk.compile.GlobalChunkBuildContext;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ChunkBuilder {
     static final Logger LOGGER = LogManager.getLogger("ChunkBuilder");
@@ -24,40 +34,197 @@ public class ChunkBuilder {
      */
     private static final int MBS_PER_CHUNK_BUILDER = 64;
     /**
-     * The number of tasks to allow in the queue per available worker thread. This value should be kept conservative
+     * The number of tasks to allow in the queue per available worker thread, until enough jobs have completed for
+     * {@link SchedulingBudgetController} to size the budget from measurements. This value should be kept conservative
      * to avoid the threads becoming backlogged and failing to keep up with changes in chunk visibility (e.g.
      * camera movement). However, it also needs to be large enough that the thread is not spending part of the
      * frame doing nothing. 2 seems to be a decent value, and is what Sodium 0.2 used.
      */
     private static final int TASK_QUEUE_LIMIT_PER_WORKER = 2;
+    /**
+     * The smallest number of sort tasks which can always be scheduled in a frame.
+     */
+    private static final int MIN_SORT_BUDGET = 4;
+    /**
+     * The number of workers to show on each line of the debug screen.
+     */
+    private static final int WORKERS_PER_DEBUG_LINE = 5;
+    /**
+     * The number of build phases to show on each line of the debug screen.
+     */
+    private static final int PHASES_PER_DEBUG_LINE = 3;
+    /**
+     * How often the phase timings shown on the debug screen are restarted. The screen shows the timings recorded since
+     * the start of the previous window, so that it reflects the last few seconds rather than the whole session.
+     */
+    private static final long DEBUG_TIMING_WINDOW_NANOS = 5_000_000_000L;
+    /**
+     * The smallest number of workers the pool will shrink to when the thread count is chosen automatically.
+     */
+    private static final int MIN_ADAPTIVE_THREAD_COUNT = 1;
+
+    /**
+     * Creates the build context of each thread, given the timings it should record into.
+     */
+    private final Function<ChunkBuildTimings, ChunkBuildContext> contextFactory;
+
+    private final ChunkJobQueue queue;
 
-    private final ChunkJobQueue queue = new ChunkJobQueue();
+    /**
+     * The worker thread occupying each slot of the job queue. A slot whose thread has exited can be reused.
+     */
+    private final WorkerThread[] workers;
+
+    private int activeThreadCount;
+
+    private final int maxThreadCount;
+
+    /**
+     * If true, the pool is resized at runtime according to {@link WorkerPoolController}. This is only done when the
+     * user has not requested a specific number of threads.
+     */
+    private final boolean adaptiveThreadCount;
 
-    private final List<Thread> threads = new ArrayList<>();
+    private final WorkerPoolController poolController = new WorkerPoolController();
+
+    private final SchedulingBudgetController budgetController = new SchedulingBudgetController(TASK_QUEUE_LIMIT_PER_WORKER);
+
+    private long lastUpdateTime = -1;
+
+    private long evictedJobCount;
+    private long helpedJobCount;
+
+    private final ChunkBuildTimings[] workerTimings;
+    private final ChunkBuildTimings renderThreadTimings = new ChunkBuildTimings("Render thread");
 
     private final AtomicInteger busyThreadCount = new AtomicInteger();
 
+    // Snapshots of the combined phase timings at the start of the current and previous debug screen windows, and
+    // scratch space for combining them. These are only used by the render thread.
+    private final TimingHistogram[] debugWindowStart = createPhaseHistograms();
+    private final TimingHistogram[] debugPreviousWindowStart = createPhaseHistograms();
+    private final TimingHistogram debugScratchHistogram = new TimingHistogram();
+    private long debugWindowStartTime = System.nanoTime();
+
     private final ChunkBuildContext localContext;
 
     public ChunkBuilder(ClientLevel world, ChunkVertexType vertexType) {
+        this(timings -> new ChunkBuildContext(world, vertexType, timings), getThreadCount(),
+                Embeddium.options().performance.chunkBuilderThreads == 0);
+    }
+
+    /**
+     * Creates a chunk builder whose threads use the build contexts made by the given factory. This does not depend on
+     * the world or the game's options, which allows the builder to be run outside the game by
+     * {@link ChunkBuildTraceReplay}.
+     *
+     * @param threadCount The number of worker threads to start with, and the most the pool can grow to
+     * @param adaptiveThreadCount Whether the pool should be resized at runtime by {@link WorkerPoolController}
+     */
+    ChunkBuilder(Function<ChunkBuildTimings, ChunkBuildContext> contextFactory, int threadCount, boolean adaptiveThreadCount) {
         GlobalChunkBuildContext.setMainThread();
 
-        int count = getThreadCount();
+        this.contextFactory = contextFactory;
+
+        this.maxThreadCount = threadCount;
+        this.adaptiveThreadCount = adaptiveThreadCount;
+
+        this.queue = new ChunkJobQueue(this.maxThreadCount);
+        this.workers = new WorkerThread[this.maxThreadCount];
+        this.workerTimings = new ChunkBuildTimings[this.maxThreadCount];
+
+        for (int i = 0; i < this.maxThreadCount; i++) {
+            this.workerTimings[i] = new ChunkBuildTimings(getWorkerName(i));
+        }
+
+        for (int i = 0; i < this.maxThreadCount; i++) {
+            this.startWorker();
+        }
+
+        LOGGER.info("Started {} worker threads", this.activeThreadCount);
+
+        this.localContext = contextFactory.apply(this.renderThreadTimings);
+
+        this.budgetController.update(-1, this.activeThreadCount);
+    }
+
+    /**
+     * Updates the scheduling budget from the timings of recently completed jobs, and resizes the worker pool if
+     * needed. This should be called once per frame from the render thread.
+     */
+    public void update() {
+        long now = System.nanoTime();
+        long frameTime = this.lastUpdateTime < 0 ? -1 : now - this.lastUpdateTime;
+        this.lastUpdateTime = now;
+
+        this.updateThreadPool(frameTime);
+
+        this.budgetController.update(frameTime, this.activeThreadCount);
+    }
+
+    private void updateThreadPool(long frameTime) {
+        if (!this.adaptiveThreadCount || !this.queue.isRunning()) {
+            return;
+        }
+
+        // Drop retired threads which have exited, so that their build contexts can be garbage collected
+        for (int i = 0; i < this.workers.length; i++) {
+            var thread = this.workers[i];
+
+            if (thread != null && !thread.isAlive() && !this.queue.isWorkerActive(i)) {
+                this.workers[i] = null;
+            }
+        }
+
+        int delta = this.poolController.update(frameTime, this.getScheduledJobCount(), this.getBusyThreadCount(),
+                this.activeThreadCount, MIN_ADAPTIVE_THREAD_COUNT, this.maxThreadCount);
 
-        for (int i = 0; i < count; i++) {
-            ChunkBuildContext context = new ChunkBuildContext(world, vertexType);
-            WorkerRunnable worker = new WorkerRunnable(context);
+        if (delta > 0) {
+            this.startWorker();
+        } else if (delta < 0) {
+            this.retireWorker();
+        }
+    }
 
-            Thread thread = new WorkerThread(worker, "Chunk Render Task Executor #" + i, context);
+    private boolean startWorker() {
+        for (int i = 0; i < this.workers.length; i++) {
+            var existing = this.workers[i];
+
+            if (existing != null && existing.isAlive()) {
+                continue;
+            }
+
+            // Each worker gets a fresh context, which is released along with the thread once it retires. The timings
+            // belong to the slot instead, so that they survive the pool being resized.
+            ChunkBuildContext context = this.contextFactory.apply(this.workerTimings[i]);
+            WorkerRunnable worker = new WorkerRunnable(i, context);
+
+            WorkerThread thread = new WorkerThread(worker, getWorkerName(i), context);
             thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
+            this.queue.bindWorker(i, thread);
             thread.start();
 
-            this.threads.add(thread);
+            this.workers[i] = thread;
+            this.activeThreadCount++;
+
+            return true;
         }
 
-        LOGGER.info("Started {} worker threads", this.threads.size());
+        return false;
+    }
+
+    private boolean retireWorker() {
+        // Retire the highest-numbered worker first, so that the remaining workers keep stable names
+        for (int i = this.workers.length - 1; i >= 0; i--) {
+            if (this.workers[i] != null && this.queue.isWorkerActive(i) && !this.queue.isRetiring(i)) {
+                this.queue.retireWorker(i);
+                this.activeThreadCount--;
 
-        this.localContext = new ChunkBuildContext(world, vertexType);
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -65,7 +232,15 @@ public class ChunkBuilder {
      * spawn more tasks than the budget allows, it will block until resources become available.
      */
     public int getSchedulingBudget() {
-        return Math.max(0, (this.threads.size() * TASK_QUEUE_LIMIT_PER_WORKER) - this.queue.size());
+        return Math.max(0, this.budgetController.getMeshBudget() - this.queue.size());
+    }
+
+    /**
+     * Returns the number of sort tasks which should be scheduled this frame. Sorts are much cheaper than rebuilds,
+     * so they are given a separate, larger budget.
+     */
+    public int getSortSchedulingBudget() {
+        return Math.max(MIN_SORT_BUDGET, this.budgetController.getSortBudget() - this.queue.size());
     }
 
     /**
@@ -89,23 +264,47 @@ public class ChunkBuilder {
         }
 
         this.shutdownThreads();
+
+        this.localContext.destroy();
     }
 
     private void shutdownThreads() {
         LOGGER.info("Stopping worker threads");
 
         // Wait for every remaining thread to terminate
-        for (Thread thread : this.threads) {
+        for (int i = 0; i < this.workers.length; i++) {
+            var thread = this.workers[i];
+
+            if (thread == null) {
+                continue;
+            }
+
             try {
                 thread.join();
             } catch (InterruptedException ignored) { }
+
+            this.workers[i] = null;
         }
 
-        this.threads.clear();
+        this.activeThreadCount = 0;
     }
 
-    public <TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT> ChunkJobTyped<TASK, OUTPUT> scheduleTask(TASK task, boolean important,
+    public <TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT> ChunkJobTyped<TASK, OUTPUT> scheduleTask(TASK task, ChunkUpdateType type,
                                                                                                     Consumer<ChunkJobResult<OUTPUT>> consumer)
+    {
+        var job = this.createJob(task, type, consumer);
+
+        this.queue.add(job, type.isImportant());
+
+        return job;
+    }
+
+    /**
+     * Creates a job for the given task without queueing it. This allows many jobs to be created up-front and then
+     * queued together with {@link #scheduleJobs(List)}.
+     */
+    public <TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT> ChunkJobTyped<TASK, OUTPUT> createJob(TASK task, ChunkUpdateType type,
+                                                                                                 Consumer<ChunkJobResult<OUTPUT>> consumer)
     {
         Validate.notNull(task, "Task must be non-null");
 
@@ -113,11 +312,28 @@ public class ChunkBuilder {
             throw new IllegalStateException("Executor is stopped");
         }
 
-        var job = new ChunkJobTyped<>(task, consumer);
+        return new ChunkJobTyped<>(task, type, consumer, this.budgetController);
+    }
+
+    /**
+     * Queues a batch of jobs which were created with {@link #createJob(ChunkBuilderTask, ChunkUpdateType, Consumer)}.
+     * This is much cheaper than queueing each job on its own, as every worker's share of the batch is published at once
+     * and idle workers are woken up in a single pass. Jobs should be given in the order they should run.
+     */
+    public void scheduleJobs(List<? extends ChunkJobTyped<?, ?>> jobs) {
+        if (!this.queue.isRunning()) {
+            throw new IllegalStateException("Executor is stopped");
+        }
+
+        List<ChunkJob> importantJobs = new ArrayList<>();
+        List<ChunkJob> regularJobs = new ArrayList<>(jobs.size());
 
-        this.queue.add(job, important);
+        for (var job : jobs) {
+            (job.getType().isImportant() ? importantJobs : regularJobs).add(job);
+        }
 
-        return job;
+        this.queue.addAll(importantJobs, true);
+        this.queue.addAll(regularJobs, false);
     }
 
     /**
@@ -142,11 +358,139 @@ public class ChunkBuilder {
         return Math.min(totalCores, maxBuilders);
     }
 
+    /**
+     * Removes a job from the queue without running it, if no worker has picked it up yet. The job is cancelled and
+     * its consumer will never be called.
+     *
+     * @return True if the job was evicted, otherwise false if it has already been taken by a worker
+     */
+    public boolean tryEvictTask(ChunkJob job) {
+        if (!this.queue.stealJob(job)) {
+            return false;
+        }
+
+        job.setCancelled();
+
+        this.evictedJobCount++;
+
+        return true;
+    }
+
+    /**
+     * Runs the given actions in parallel, and returns once all of them have finished. The actions are offered to the
+     * worker threads ahead of any other queued work, and the calling thread runs every action which has not been
+     * picked up by a worker by the time it gets to it. Because the caller never waits on an action which isn't
+     * already running, this can safely be called from within a job on a worker thread.
+     *
+     * <p>The first action is always run by the caller, and receives the given context. Any other action may be run by
+     * either the caller or a worker. Actions which are run by a worker receive that worker's context instead, which is
+     * cleaned up after the action returns.</p>
+     *
+     * @param actions The actions to run
+     * @param context The build context of the calling thread
+     * @return True if all actions ran, or false if some were cancelled because the builder is shutting down
+     */
+    public boolean invokeAll(List<? extends Consumer<ChunkBuildContext>> actions, ChunkBuildContext context) {
+        var jobs = new ArrayList<ChunkSubJob>(actions.size());
+
+        for (var action : actions) {
+            jobs.add(new ChunkSubJob(action));
+        }
+
+        // Keep the first action for ourselves, since we would otherwise just be waiting for a worker to pick it up
+        if (this.queue.isRunning()) {
+            this.queue.addAll(jobs.subList(1, jobs.size()), true);
+        }
+
+        // Work through the actions in order, running any which no worker has claimed yet
+        for (int i = 0; i < jobs.size(); i++) {
+            var job = jobs.get(i);
+
+            if (i == 0 ? job.tryClaim() : this.queue.stealJob(job)) {
+                job.execute(context);
+            }
+        }
+
+        // Wait for everything to finish before reporting any failure, so that the caller can safely release the
+        // resources the actions were using
+        for (var job : jobs) {
+            job.await();
+        }
+
+        boolean completed = true;
+
+        for (var job : jobs) {
+            var failure = job.getFailure();
+
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            } else if (failure instanceof Error e) {
+                throw e;
+            } else if (failure != null) {
+                throw new RuntimeException("Exception while running parallel chunk build", failure);
+            }
+
+            completed &= !job.isCancelled();
+        }
+
+        return completed;
+    }
+
     public void tryStealTask(ChunkJob job) {
         if (!this.queue.stealJob(job)) {
             return;
         }
 
+        this.runOnRenderThread(job);
+    }
+
+    /**
+     * Runs one queued job on the calling (render) thread, as long as it is expected to finish before the given deadline.
+     * This is used to keep the render thread busy while it waits on other jobs, instead of leaving it parked. Only
+     * jobs whose average execution time is known are considered, except for pieces of a split important rebuild,
+     * which the render thread is always waiting on anyway.
+     *
+     * @param deadline The value of {@link System#nanoTime()} by which the job should be finished
+     * @return True if a job was run, otherwise false if no suitable job could be found
+     */
+    public boolean tryRunQueuedJob(long deadline) {
+        long remaining = deadline - System.nanoTime();
+
+        if (remaining <= 0) {
+            return false;
+        }
+
+        var job = this.queue.claimJob(candidate -> {
+            if (candidate instanceof ChunkSubJob) {
+                return true;
+            }
+
+            if (candidate instanceof ChunkJobTyped<?, ?> typed) {
+                double executeTime = this.budgetController.getAverageExecuteTime(typed.getType());
+                return executeTime > 0.0 && executeTime <= remaining;
+            }
+
+            return false;
+        });
+
+        if (job == null) {
+            return false;
+        }
+
+        this.runOnRenderThread(job);
+        this.helpedJobCount++;
+
+        return true;
+    }
+
+    /**
+     * {@return the average time the render thread has to wait for an important job to finish, in nanoseconds}
+     */
+    public double getAverageImportantJobTime() {
+        return this.budgetController.getAverageExecuteTime(ChunkUpdateType.IMPORTANT_REBUILD);
+    }
+
+    private void runOnRenderThread(ChunkJob job) {
         var localContext = this.localContext;
         GlobalChunkBuildContext.bindMainThread(localContext);
 
@@ -171,7 +515,159 @@ public class ChunkBuilder {
     }
 
     public int getTotalThreadCount() {
-        return this.threads.size();
+        return this.activeThreadCount;
+    }
+
+    /**
+     * Returns the scheduler statistics, formatted for the debug screen. This includes the current scheduling budgets
+     * and job timings for each update type, followed by how many jobs each worker has stolen from other workers and
+     * how many times it has gone idle.
+     */
+    public Collection<String> getDebugStrings() {
+        List<String> list = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+
+        list.add(String.format("Chunk Budget: Mesh=%d | Sort=%d | Evicted=%d | Helped=%d", this.budgetController.getMeshBudget(),
+                this.budgetController.getSortBudget(), this.evictedJobCount, this.helpedJobCount));
+
+        sb.append("Job Times (run/wait ms):");
+
+        for (var type : ChunkUpdateType.values()) {
+            sb.append(String.format(" %s=%.1f/%.1f", getShortName(type),
+                    this.budgetController.getAverageExecuteTime(type) / 1_000_000.0,
+                    this.budgetController.getAverageQueueTime(type) / 1_000_000.0));
+        }
+
+        list.add(sb.toString());
+        sb.setLength(0);
+
+        int count = 0;
+
+        long now = System.nanoTime();
+        boolean startWindow = now - this.debugWindowStartTime >= DEBUG_TIMING_WINDOW_NANOS;
+
+        if (startWindow) {
+            this.debugWindowStartTime = now;
+        }
+
+        for (var phase : ChunkBuildPhase.VALUES) {
+            var histogram = this.debugScratchHistogram;
+            this.getPhaseTimings(phase, histogram);
+
+            var windowStart = this.debugWindowStart[phase.ordinal()];
+            var previousWindowStart = this.debugPreviousWindowStart[phase.ordinal()];
+
+            if (startWindow) {
+                previousWindowStart.copyFrom(windowStart);
+                windowStart.copyFrom(histogram);
+            }
+
+            histogram.subtract(previousWindowStart);
+
+            if (sb.isEmpty()) {
+                sb.append("Recent Phase Times (p50/p99 ms):");
+            }
+
+            sb.append(String.format(" %s=%.2f/%.2f", phase.getShortName(),
+                    histogram.getValueAtPercentile(0.5) / 1_000_000.0,
+                    histogram.getValueAtPercentile(0.99) / 1_000_000.0));
+
+            if (++count % PHASES_PER_DEBUG_LINE == 0) {
+                list.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+
+        if (!sb.isEmpty()) {
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
+
+        count = 0;
+
+        for (int i = 0; i < this.queue.getWorkerCount(); i++) {
+            if (!this.queue.isWorkerActive(i)) {
+                continue;
+            }
+
+            if (sb.isEmpty()) {
+                sb.append("Workers (steals/idle):");
+            }
+
+            sb.append(String.format(" #%d=%d/%d", i, this.queue.getStealCount(i), this.queue.getIdleCount(i)));
+
+            if (++count % WORKERS_PER_DEBUG_LINE == 0) {
+                list.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+
+        if (!sb.isEmpty()) {
+            list.add(sb.toString());
+        }
+
+        return list;
+    }
+
+    /**
+     * Combines the timings of the given phase across the render thread and every worker, since the builder was created.
+     *
+     * @param dest The histogram to store the result in, which is cleared first
+     */
+    public void getPhaseTimings(ChunkBuildPhase phase, TimingHistogram dest) {
+        dest.clear();
+        dest.add(this.renderThreadTimings.get(phase));
+
+        for (var timings : this.workerTimings) {
+            dest.add(timings.get(phase));
+        }
+    }
+
+    private static TimingHistogram[] createPhaseHistograms() {
+        var histograms = new TimingHistogram[ChunkBuildPhase.VALUES.length];
+
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new TimingHistogram();
+        }
+
+        return histograms;
+    }
+
+    /**
+     * {@return the timings recorded by the render thread} This should only be used from the render thread, to time
+     * work it does on behalf of the chunk builder.
+     */
+    public ChunkBuildTimings getRenderThreadTimings() {
+        return this.renderThreadTimings;
+    }
+
+    /**
+     * Writes the timings of every thread to a CSV file.
+     */
+    public void exportTimings(Path path) throws IOException {
+        ChunkBuildTimingsExporter.writeCsv(this.getAllTimings(), path);
+    }
+
+    private List<ChunkBuildTimings> getAllTimings() {
+        var list = new ArrayList<ChunkBuildTimings>(this.workerTimings.length + 1);
+        list.add(this.renderThreadTimings);
+        list.addAll(Arrays.asList(this.workerTimings));
+
+        return list;
+    }
+
+    private static String getWorkerName(int index) {
+        return "Chunk Render Task Executor #" + index;
+    }
+
+    private static String getShortName(ChunkUpdateType type) {
+        return switch (type) {
+            case INITIAL_BUILD -> "IB";
+            case SORT -> "S";
+            case IMPORTANT_SORT -> "IS";
+            case REBUILD -> "R";
+            case IMPORTANT_REBUILD -> "IR";
+        };
     }
 
     private static class WorkerThread extends Thread implements GlobalChunkBuildContext.Holder {
@@ -190,22 +686,25 @@ public class ChunkBuilder {
     }
 
     private class WorkerRunnable implements Runnable {
+        private final int index;
+
         // Making this thread-local provides a small boost to performance by avoiding the overhead in synchronizing
         // caches between different CPU cores
         private final ChunkBuildContext context;
 
-        public WorkerRunnable(ChunkBuildContext context) {
+        public WorkerRunnable(int index, ChunkBuildContext context) {
+            this.index = index;
             this.context = context;
         }
 
         @Override
         public void run() {
-            // Run until the chunk builder shuts down
-            while (ChunkBuilder.this.queue.isRunning()) {
+            // Run until the chunk builder shuts down, or this worker is retired
+            while (ChunkBuilder.this.queue.isRunning() && !ChunkBuilder.this.queue.isRetiring(this.index)) {
                 ChunkJob job;
 
                 try {
-                    job = ChunkBuilder.this.queue.waitForNextJob();
+                    job = ChunkBuilder.this.queue.waitForNextJob(this.index);
                 } catch (InterruptedException ignored) {
                     continue;
                 }
@@ -225,6 +724,11 @@ public class ChunkBuilder {
                     ChunkBuilder.this.busyThreadCount.decrementAndGet();
                 }
             }
+
+            // Hand any jobs still waiting for us to the remaining workers
+            ChunkBuilder.this.queue.unbindWorker(this.index);
+
+            this.context.destroy();
         }
     }
 }
@@ -7,4 +7,12 @@ public interface ChunkJob extends CancellationToken {
     void execute(ChunkBuildContext context);
 
     boolean isStarted();
+
+    /**
+     * Attempts to take ownership of this job for execution. Only the first caller will succeed, which guarantees
+     * that a job is never executed twice even if it is reachable from multiple queues.
+     *
+     * @return True if the caller now owns the job and must execute it, otherwise false
+     */
+    boolean tryClaim();
 }
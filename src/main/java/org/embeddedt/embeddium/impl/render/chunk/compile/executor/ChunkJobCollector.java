@@ -1,25 +1,28 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
 
-import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
-public class ChunkJobCollector {
+public class ChunkJobCollector<OUTPUT> {
+    /**
+     * The longest the render thread will spend on other work while waiting for its jobs to complete.
+     */
+    private static final long MAX_HELP_TIME_NANOS = 2_000_000L;
+
     private final Semaphore semaphore = new Semaphore(0);
-    private final Consumer<ChunkJobResult<ChunkBuildOutput>> collector;
+    private final Consumer<ChunkJobResult<OUTPUT>> collector;
     private final List<ChunkJob> submitted = new ArrayList<>();
 
     private final int budget;
 
-    public ChunkJobCollector(int budget, Consumer<ChunkJobResult<ChunkBuildOutput>> collector) {
+    public ChunkJobCollector(int budget, Consumer<ChunkJobResult<OUTPUT>> collector) {
         this.budget = budget;
         this.collector = collector;
     }
 
-    public void onJobFinished(ChunkJobResult<ChunkBuildOutput> result) {
+    public void onJobFinished(ChunkJobResult<OUTPUT> result) {
         this.semaphore.release(1);
         this.collector.accept(result);
     }
@@ -37,7 +40,18 @@ public class ChunkJobCollector {
             builder.tryStealTask(job);
         }
 
-        this.semaphore.acquireUninterruptibly(this.submitted.size());
+        int permits = this.submitted.size();
+
+        // While the workers finish the remaining jobs, run other queued work which is expected to be done before they
+        // are, rather than leaving the render thread parked
+        long deadline = System.nanoTime() + Math.min(MAX_HELP_TIME_NANOS, (long) builder.getAverageImportantJobTime());
+
+        while (!this.semaphore.tryAcquire(permits)) {
+            if (!builder.tryRunQueuedJob(deadline)) {
+                this.semaphore.acquireUninterruptibly(permits);
+                break;
+            }
+        }
     }
 
     public void addSubmittedJob(ChunkJob job) {
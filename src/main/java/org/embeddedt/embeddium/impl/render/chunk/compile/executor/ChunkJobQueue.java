@@ -3,90 +3,449 @@ package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
+/**
+ * A work-stealing job queue. Each worker owns a deque which it consumes from the head, and idle workers steal from
+ * the tail of a randomly chosen victim. Important jobs are kept in a separate shared deque which every worker checks
+ * first, so that they are always picked up ahead of regular jobs.
+ *
+ * <p>Jobs are claimed through {@link ChunkJob#tryClaim()} before being handed out. This allows the main thread to
+ * steal a specific job without searching every deque for it; the claimed job is simply left behind and skipped by
+ * whichever worker dequeues it later.</p>
+ */
 class ChunkJobQueue {
-    private final ConcurrentLinkedDeque<ChunkJob> jobs = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<ChunkJob> importantJobs = new ConcurrentLinkedDeque<>();
 
-    private final Semaphore semaphore = new Semaphore(0);
+    private final WorkerQueue[] workers;
+
+    // Counts jobs which have been queued but not yet claimed. A LongAdder is used so that workers taking jobs do not
+    // all contend on the same cache line.
+    private final LongAdder pendingJobs = new LongAdder();
+
+    private final AtomicInteger nextWorker = new AtomicInteger();
 
     private final AtomicBoolean isRunning = new AtomicBoolean(true);
 
+    ChunkJobQueue(int workerCount) {
+        Validate.isTrue(workerCount > 0, "At least one worker is required");
+
+        this.workers = new WorkerQueue[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            this.workers[i] = new WorkerQueue();
+        }
+    }
+
     public boolean isRunning() {
         return this.isRunning.get();
     }
 
+    /**
+     * Binds the given thread to the worker slot, so that it can be woken up when new jobs arrive and will start
+     * receiving a share of newly submitted jobs.
+     */
+    public void bindWorker(int worker, Thread thread) {
+        var slot = this.workers[worker];
+        slot.retiring = false;
+        slot.thread = thread;
+        slot.active = true;
+    }
+
+    /**
+     * Asks the worker in the given slot to exit once it finishes its current job.
+     */
+    public void retireWorker(int worker) {
+        var slot = this.workers[worker];
+        slot.retiring = true;
+
+        if (slot.thread != null) {
+            LockSupport.unpark(slot.thread);
+        }
+    }
+
+    public boolean isRetiring(int worker) {
+        return this.workers[worker].retiring;
+    }
+
+    /**
+     * Detaches the calling worker from its slot. Any jobs still waiting in its deque are handed over to the
+     * remaining workers, so that they do not have to wait for someone to steal them.
+     */
+    public void unbindWorker(int worker) {
+        var slot = this.workers[worker];
+        slot.active = false;
+        slot.thread = null;
+
+        ChunkJob job;
+        int moved = 0;
+
+        while ((job = slot.jobs.pollFirst()) != null) {
+            this.getSubmissionQueue().jobs.addLast(job);
+            moved++;
+        }
+
+        this.signalWork(moved);
+    }
+
     public void add(ChunkJob job, boolean important) {
         Validate.isTrue(this.isRunning(), "Queue is no longer running");
 
         if (important) {
-            this.jobs.addFirst(job);
+            this.importantJobs.addFirst(job);
         } else {
-            this.jobs.addLast(job);
+            this.getSubmissionQueue().jobs.addLast(job);
         }
 
-        this.semaphore.release(1);
+        this.pendingJobs.increment();
+
+        this.signalWork();
     }
 
-    @Nullable
-    public ChunkJob waitForNextJob() throws InterruptedException {
-        if (!this.isRunning()) {
-            return null;
+    /**
+     * Adds several jobs at once. Regular jobs are dealt out to the active workers in a round-robin fashion, and each
+     * worker's share is linked into its deque with a single operation. Parked workers are then woken up in a single
+     * pass, rather than once per job.
+     *
+     * <p>The jobs should be given in the order they should run. Important jobs are still placed ahead of any
+     * previously queued important jobs, but keep their relative order within the batch.</p>
+     */
+    public void addAll(List<? extends ChunkJob> jobs, boolean important) {
+        Validate.isTrue(this.isRunning(), "Queue is no longer running");
+
+        if (jobs.isEmpty()) {
+            return;
         }
 
-        this.semaphore.acquire();
+        if (important) {
+            for (int i = jobs.size() - 1; i >= 0; i--) {
+                this.importantJobs.addFirst(jobs.get(i));
+            }
+        } else {
+            var targets = this.getActiveWorkers();
+            var shares = new ArrayList<List<ChunkJob>>(targets.size());
+
+            for (int i = 0; i < targets.size(); i++) {
+                shares.add(new ArrayList<>((jobs.size() / targets.size()) + 1));
+            }
+
+            int offset = Math.floorMod(this.nextWorker.getAndAdd(jobs.size()), targets.size());
+
+            for (int i = 0; i < jobs.size(); i++) {
+                shares.get((offset + i) % targets.size()).add(jobs.get(i));
+            }
+
+            for (int i = 0; i < targets.size(); i++) {
+                var share = shares.get(i);
+
+                if (!share.isEmpty()) {
+                    targets.get(i).jobs.addAll(share);
+                }
+            }
+        }
+
+        this.pendingJobs.add(jobs.size());
+
+        this.signalWork(jobs.size());
+    }
+
+    private List<WorkerQueue> getActiveWorkers() {
+        var list = new ArrayList<WorkerQueue>(this.workers.length);
+
+        for (var worker : this.workers) {
+            if (worker.active) {
+                list.add(worker);
+            }
+        }
+
+        if (list.isEmpty()) {
+            // No workers are active right now, so any deque will do; the next worker to start will steal from it
+            list.add(this.workers[0]);
+        }
+
+        return list;
+    }
+
+    private WorkerQueue getSubmissionQueue() {
+        var workers = this.workers;
+
+        // Distribute jobs in a round-robin fashion so that every worker starts with roughly the same amount of work
+        for (int i = 0; i < workers.length; i++) {
+            var worker = workers[Math.floorMod(this.nextWorker.getAndIncrement(), workers.length)];
+
+            if (worker.active) {
+                return worker;
+            }
+        }
+
+        // No workers are active right now, so any deque will do; the next worker to start will steal from it
+        return workers[0];
+    }
+
+    /**
+     * Wakes up a single parked worker, if there is one.
+     */
+    private void signalWork() {
+        this.signalWork(1);
+    }
+
+    /**
+     * Wakes up to the given number of parked workers.
+     */
+    private void signalWork(int count) {
+        var workers = this.workers;
+        int start = ThreadLocalRandom.current().nextInt(workers.length);
+
+        for (int i = 0; i < workers.length && count > 0; i++) {
+            var worker = workers[(start + i) % workers.length];
+
+            if (worker.parked.get() && worker.parked.compareAndSet(true, false)) {
+                LockSupport.unpark(worker.thread);
+                count--;
+            }
+        }
+    }
+
+    @Nullable
+    public ChunkJob waitForNextJob(int worker) throws InterruptedException {
+        var self = this.workers[worker];
+
+        while (this.isRunning() && !self.retiring) {
+            var job = this.getNextTask(worker);
+
+            if (job != null) {
+                return job;
+            }
+
+            // Publish that we are about to park, and then check the queues one last time. Any job submitted after
+            // this point will see the flag and unpark us, so no wake-up can be lost.
+            self.parked.set(true);
+
+            job = this.getNextTask(worker);
+
+            if (job != null) {
+                self.parked.set(false);
+                return job;
+            }
+
+            if (!this.isRunning() || self.retiring) {
+                self.parked.set(false);
+                break;
+            }
+
+            self.idleCount++;
+
+            LockSupport.park(this);
+
+            self.parked.set(false);
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
 
-        return this.getNextTask();
+        return null;
     }
 
     public boolean stealJob(ChunkJob job) {
-        if (!this.semaphore.tryAcquire()) {
+        if (!job.tryClaim()) {
             return false;
         }
 
-        var success = this.jobs.remove(job);
+        // The job is left in whichever deque it was in, and will be discarded when a worker reaches it
+        this.pendingJobs.decrement();
+
+        return true;
+    }
+
+    /**
+     * Claims the first queued job which matches the given filter. Important jobs are searched first, and then the
+     * tail of each worker's deque, since those are the jobs the workers themselves will get to last. The claimed job
+     * is left in place and skipped by workers, in the same way as {@link #stealJob(ChunkJob)}.
+     */
+    @Nullable
+    public ChunkJob claimJob(Predicate<ChunkJob> filter) {
+        var job = this.claimMatching(this.importantJobs.iterator(), filter);
+
+        if (job != null) {
+            return job;
+        }
+
+        for (var worker : this.workers) {
+            if ((job = this.claimMatching(worker.jobs.descendingIterator(), filter)) != null) {
+                return job;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private ChunkJob claimMatching(Iterator<ChunkJob> it, Predicate<ChunkJob> filter) {
+        while (it.hasNext()) {
+            var job = it.next();
 
-        if (!success) {
-            // If we didn't manage to actually steal the task, then we need to release the permit which we did steal
-            this.semaphore.release(1);
+            if (!job.isStarted() && !job.isCancelled() && filter.test(job) && this.stealJob(job)) {
+                return job;
+            }
         }
 
-        return success;
+        return null;
     }
 
     @Nullable
-    private ChunkJob getNextTask() {
-        return this.jobs.poll();
+    private ChunkJob getNextTask(int worker) {
+        ChunkJob job;
+
+        if ((job = this.claimFirst(this.importantJobs)) != null) {
+            return job;
+        }
+
+        if ((job = this.claimFirst(this.workers[worker].jobs)) != null) {
+            return job;
+        }
+
+        return this.trySteal(worker);
     }
 
+    @Nullable
+    private ChunkJob trySteal(int thief) {
+        var workers = this.workers;
+
+        if (workers.length < 2) {
+            return null;
+        }
+
+        // Start at a random victim to avoid every idle worker hammering the same deque
+        int start = ThreadLocalRandom.current().nextInt(workers.length);
+
+        for (int i = 0; i < workers.length; i++) {
+            int victim = (start + i) % workers.length;
+
+            if (victim == thief) {
+                continue;
+            }
+
+            var job = this.claimLast(workers[victim].jobs);
+
+            if (job != null) {
+                workers[thief].stealCount++;
+                return job;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private ChunkJob claimFirst(ConcurrentLinkedDeque<ChunkJob> deque) {
+        ChunkJob job;
+
+        while ((job = deque.pollFirst()) != null) {
+            if (job.tryClaim()) {
+                this.pendingJobs.decrement();
+                return job;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private ChunkJob claimLast(ConcurrentLinkedDeque<ChunkJob> deque) {
+        ChunkJob job;
+
+        while ((job = deque.pollLast()) != null) {
+            if (job.tryClaim()) {
+                this.pendingJobs.decrement();
+                return job;
+            }
+        }
+
+        return null;
+    }
 
     public Collection<ChunkJob> shutdown() {
         var list = new ArrayDeque<ChunkJob>();
 
         this.isRunning.set(false);
 
-        while (this.semaphore.tryAcquire()) {
-            var task = this.jobs.poll();
+        this.drainTo(this.importantJobs, list);
 
-            if (task != null) {
-                list.add(task);
-            }
+        for (var worker : this.workers) {
+            this.drainTo(worker.jobs, list);
         }
 
         // force the worker threads to wake up and exit
-        this.semaphore.release(Runtime.getRuntime().availableProcessors());
+        for (var worker : this.workers) {
+            if (worker.thread != null) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
 
         return list;
     }
 
+    private void drainTo(ConcurrentLinkedDeque<ChunkJob> deque, Collection<ChunkJob> list) {
+        ChunkJob job;
+
+        while ((job = this.claimFirst(deque)) != null) {
+            list.add(job);
+        }
+    }
+
     public int size() {
-        return this.semaphore.availablePermits();
+        return Math.max(0, (int) this.pendingJobs.sum());
     }
 
     public boolean isEmpty() {
         return this.size() == 0;
     }
+
+    public int getWorkerCount() {
+        return this.workers.length;
+    }
+
+    public boolean isWorkerActive(int worker) {
+        return this.workers[worker].active;
+    }
+
+    /**
+     * {@return the number of jobs the given worker has taken from the deques of other workers}
+     */
+    public long getStealCount(int worker) {
+        return this.workers[worker].stealCount;
+    }
+
+    /**
+     * {@return the number of times the given worker has parked after running out of work}
+     */
+    public long getIdleCount(int worker) {
+        return this.workers[worker].idleCount;
+    }
+
+    private static class WorkerQueue {
+        private final ConcurrentLinkedDeque<ChunkJob> jobs = new ConcurrentLinkedDeque<>();
+
+        private final AtomicBoolean parked = new AtomicBoolean();
+
+        private volatile Thread thread;
+
+        private volatile boolean active;
+        private volatile boolean retiring;
+
+        // Only ever written by the owning worker, so plain increments are safe
+        private volatile long stealCount;
+        private volatile long idleCount;
+    }
 }
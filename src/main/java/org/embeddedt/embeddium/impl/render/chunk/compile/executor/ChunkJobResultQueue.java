@@ -0,0 +1,81 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collects the results of finished jobs so that they can be processed by the render thread. Any number of workers
+ * can add results concurrently, but only a single thread may drain them.
+ *
+ * <p>Results are pushed onto a lock-free stack, and {@link #drainTo(Collection)} detaches the entire stack with one
+ * atomic operation. This means the render thread pays a fixed cost to collect every result which finished during a
+ * frame, rather than synchronizing once per result.</p>
+ */
+public class ChunkJobResultQueue<OUTPUT> {
+    private final AtomicReference<Node<OUTPUT>> head = new AtomicReference<>();
+
+    public void add(ChunkJobResult<OUTPUT> result) {
+        var node = new Node<>(result);
+        Node<OUTPUT> prev;
+
+        do {
+            prev = this.head.get();
+            node.next = prev;
+        } while (!this.head.compareAndSet(prev, node));
+    }
+
+    /**
+     * Removes all results which have been added so far, and adds them to the given collection in the order they
+     * were added.
+     *
+     * @return The number of results which were drained
+     */
+    public int drainTo(Collection<? super ChunkJobResult<OUTPUT>> collection) {
+        var node = this.head.getAndSet(null);
+
+        // The stack holds the newest result first, so reverse it to restore the order they were added in
+        Node<OUTPUT> reversed = null;
+        int count = 0;
+
+        while (node != null) {
+            var next = node.next;
+            node.next = reversed;
+            reversed = node;
+            node = next;
+            count++;
+        }
+
+        for (node = reversed; node != null; node = node.next) {
+            collection.add(node.result);
+        }
+
+        return count;
+    }
+
+    /**
+     * {@return the number of results waiting to be drained} This walks the entire queue, and should only be used for
+     * debugging. It must be called from the thread which drains the queue.
+     */
+    public int size() {
+        int count = 0;
+
+        for (var node = this.head.get(); node != null; node = node.next) {
+            count++;
+        }
+
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return this.head.get() == null;
+    }
+
+    private static class Node<OUTPUT> {
+        private final ChunkJobResult<OUTPUT> result;
+        private Node<OUTPUT> next;
+
+        private Node(ChunkJobResult<OUTPUT> result) {
+            this.result = result;
+        }
+    }
+}
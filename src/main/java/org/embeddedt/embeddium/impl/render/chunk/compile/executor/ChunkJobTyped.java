@@ -1,22 +1,39 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
 
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.chunk.compile.tasks.ChunkBuilderTask;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
         implements ChunkJob
 {
     private final TASK task;
+    private final ChunkUpdateType type;
     private final Consumer<ChunkJobResult<OUTPUT>> consumer;
 
+    @Nullable
+    private final SchedulingBudgetController statistics;
+
+    private final long submitTime = System.nanoTime();
+
+    private long queueTime;
+    // Written after queueTime, so that reading this first makes both visible
+    private volatile long executeTime = -1;
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
     private volatile boolean cancelled;
     private volatile boolean started;
 
-    ChunkJobTyped(TASK task, Consumer<ChunkJobResult<OUTPUT>> consumer) {
+    ChunkJobTyped(TASK task, ChunkUpdateType type, Consumer<ChunkJobResult<OUTPUT>> consumer, @Nullable SchedulingBudgetController statistics) {
         this.task = task;
+        this.type = type;
         this.consumer = consumer;
+        this.statistics = statistics;
     }
 
     @Override
@@ -38,6 +55,8 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
 
         this.started = true;
 
+        long startTime = System.nanoTime();
+
         ChunkJobResult<OUTPUT> result;
 
         try {
@@ -54,6 +73,13 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
             ChunkBuilder.LOGGER.error("Chunk build failed", throwable);
         }
 
+        this.queueTime = startTime - this.submitTime;
+        this.executeTime = System.nanoTime() - startTime;
+
+        if (this.statistics != null) {
+            this.statistics.recordJob(this.type, this.queueTime, this.executeTime);
+        }
+
         try {
             this.consumer.accept(result);
         } catch (Throwable throwable) {
@@ -61,8 +87,32 @@ public class ChunkJobTyped<TASK extends ChunkBuilderTask<OUTPUT>, OUTPUT>
         }
     }
 
+    public ChunkUpdateType getType() {
+        return this.type;
+    }
+
+    /**
+     * {@return the time this job spent executing in nanoseconds, or -1 if it has not finished running}
+     */
+    public long getExecuteTime() {
+        return this.executeTime;
+    }
+
+    /**
+     * {@return the time this job spent waiting in the queue in nanoseconds} This is only valid once
+     * {@link #getExecuteTime()} has returned a finished value.
+     */
+    public long getQueueTime() {
+        return this.queueTime;
+    }
+
     @Override
     public boolean isStarted() {
         return this.started;
     }
+
+    @Override
+    public boolean tryClaim() {
+        return !this.claimed.get() && this.claimed.compareAndSet(false, true);
+    }
 }
@@ -0,0 +1,102 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A piece of a larger job which has been split up to run on several workers at once. Unlike {@link ChunkJobTyped},
+ * there is no result consumer; the job which forked it waits for it to finish with {@link #await()}.
+ */
+class ChunkSubJob implements ChunkJob {
+    private final Consumer<ChunkBuildContext> action;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private volatile boolean cancelled;
+    private volatile boolean started;
+
+    @Nullable
+    private Throwable failure;
+
+    ChunkSubJob(Consumer<ChunkBuildContext> action) {
+        this.action = action;
+    }
+
+    @Override
+    public void execute(ChunkBuildContext context) {
+        if (this.cancelled) {
+            this.finished.countDown();
+            return;
+        }
+
+        this.started = true;
+
+        try {
+            this.action.accept(context);
+        } catch (Throwable throwable) {
+            this.failure = throwable;
+        } finally {
+            this.finished.countDown();
+        }
+    }
+
+    /**
+     * Blocks until the job has either finished running or been cancelled.
+     */
+    public void await() {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                this.finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * {@return the exception thrown by the job, if any} This must only be called after {@link #await()} returns.
+     */
+    @Nullable
+    public Throwable getFailure() {
+        return this.failure;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return this.started;
+    }
+
+    @Override
+    public boolean tryClaim() {
+        return !this.claimed.get() && this.claimed.compareAndSet(false, true);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    @Override
+    public void setCancelled() {
+        this.cancelled = true;
+
+        // A job is only cancelled by the builder after it has been claimed out of the queue, so nobody else will ever
+        // run it. Release whoever is waiting on it.
+        if (!this.started) {
+            this.finished.countDown();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+import net.minecraft.util.Mth;
+import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sizes the number of jobs which may be queued per frame based on measurements of the jobs that have actually run.
+ * Workers record how long each job waited in the queue and how long it took to execute, broken down by
+ * {@link ChunkUpdateType}. Once per frame, the render thread folds those measurements into running averages and
+ * recomputes the budget.
+ *
+ * <p>The budget aims to give every worker enough jobs to stay busy for {@link #TARGET_QUEUE_FRAMES} frames. A longer
+ * queue only adds latency, and its jobs are likely to be stale by the time they run if the camera is moving. If jobs
+ * are still found to wait longer than that, the budget is scaled down further until the latency recovers.</p>
+ */
+class SchedulingBudgetController {
+    /**
+     * The number of frames worth of work to keep queued for each worker.
+     */
+    private static final float TARGET_QUEUE_FRAMES = 2.0f;
+
+    private static final int MIN_JOBS_PER_WORKER = 1;
+    private static final int MAX_JOBS_PER_WORKER = 16;
+
+    private static final int MIN_SORTS_PER_WORKER = 4;
+    private static final int MAX_SORTS_PER_WORKER = 64;
+
+    private static final double AVERAGE_WEIGHT = 0.05;
+
+    private static final float LATENCY_BACKOFF = 0.9f;
+    private static final float LATENCY_RECOVERY = 1.02f;
+    private static final float MIN_LATENCY_SCALE = 0.25f;
+
+    private static final ChunkUpdateType[] TYPES = ChunkUpdateType.values();
+
+    private final Statistics[] statistics = new Statistics[TYPES.length];
+
+    private final int fallbackJobsPerWorker;
+
+    private double frameTime;
+    private float latencyScale = 1.0f;
+
+    private int meshBudget, sortBudget;
+
+    SchedulingBudgetController(int fallbackJobsPerWorker) {
+        this.fallbackJobsPerWorker = fallbackJobsPerWorker;
+
+        for (int i = 0; i < TYPES.length; i++) {
+            this.statistics[i] = new Statistics();
+        }
+    }
+
+    /**
+     * Records the timings of a finished job. This may be called from any thread.
+     */
+    public void recordJob(ChunkUpdateType type, long queueNanos, long executeNanos) {
+        this.statistics[type.ordinal()].record(queueNanos, executeNanos);
+    }
+
+    /**
+     * Folds the timings recorded since the last frame into the running averages, and recomputes the budgets.
+     *
+     * @param frameNanos The time taken by the last frame, or a negative value if not known
+     * @param workers    The number of active workers
+     */
+    public void update(long frameNanos, int workers) {
+        if (frameNanos > 0) {
+            this.frameTime = this.frameTime == 0.0 ? frameNanos : mix(this.frameTime, frameNanos);
+        }
+
+        for (var stats : this.statistics) {
+            stats.update();
+        }
+
+        double meshTime = this.getAverageExecuteTime(false);
+        double sortTime = this.getAverageExecuteTime(true);
+
+        this.updateLatencyScale();
+
+        int jobsPerWorker = this.getJobsPerWorker(meshTime, MIN_JOBS_PER_WORKER, MAX_JOBS_PER_WORKER, this.fallbackJobsPerWorker);
+        int sortsPerWorker = this.getJobsPerWorker(sortTime, MIN_SORTS_PER_WORKER, MAX_SORTS_PER_WORKER, this.fallbackJobsPerWorker * 4);
+
+        this.meshBudget = workers * jobsPerWorker;
+        this.sortBudget = workers * sortsPerWorker;
+    }
+
+    private int getJobsPerWorker(double executeTime, int min, int max, int fallback) {
+        if (this.frameTime <= 0.0 || executeTime <= 0.0) {
+            return fallback;
+        }
+
+        double jobsPerFrame = this.frameTime / executeTime;
+        int jobs = (int) Math.ceil(jobsPerFrame * TARGET_QUEUE_FRAMES * this.latencyScale);
+
+        return Mth.clamp(jobs, min, max);
+    }
+
+    private void updateLatencyScale() {
+        double latency = 0.0;
+
+        for (int i = 0; i < TYPES.length; i++) {
+            // Important jobs bypass the budget entirely, so they should not influence it
+            if (!TYPES[i].isImportant()) {
+                latency = Math.max(latency, this.statistics[i].queueTime);
+            }
+        }
+
+        if (this.frameTime > 0.0 && latency > this.frameTime * TARGET_QUEUE_FRAMES) {
+            this.latencyScale = Math.max(MIN_LATENCY_SCALE, this.latencyScale * LATENCY_BACKOFF);
+        } else {
+            this.latencyScale = Math.min(1.0f, this.latencyScale * LATENCY_RECOVERY);
+        }
+    }
+
+    private double getAverageExecuteTime(boolean sort) {
+        double total = 0.0;
+        int count = 0;
+
+        for (int i = 0; i < TYPES.length; i++) {
+            var stats = this.statistics[i];
+
+            if (TYPES[i].isSort() == sort && stats.executeTime > 0.0) {
+                total += stats.executeTime;
+                count++;
+            }
+        }
+
+        return count == 0 ? 0.0 : total / count;
+    }
+
+    /**
+     * {@return the total number of mesh jobs which should be queued at once}
+     */
+    public int getMeshBudget() {
+        return this.meshBudget;
+    }
+
+    /**
+     * {@return the total number of sort jobs which should be queued at once}
+     */
+    public int getSortBudget() {
+        return this.sortBudget;
+    }
+
+    /**
+     * {@return the average time jobs of the given type spent executing, in nanoseconds}
+     */
+    public double getAverageExecuteTime(ChunkUpdateType type) {
+        return this.statistics[type.ordinal()].executeTime;
+    }
+
+    /**
+     * {@return the average time jobs of the given type spent waiting in the queue, in nanoseconds}
+     */
+    public double getAverageQueueTime(ChunkUpdateType type) {
+        return this.statistics[type.ordinal()].queueTime;
+    }
+
+    private static double mix(double average, double sample) {
+        return average + ((sample - average) * AVERAGE_WEIGHT);
+    }
+
+    private static class Statistics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+
+        // Only accessed by the render thread
+        private long lastCount, lastQueueNanos, lastExecuteNanos;
+        private double queueTime, executeTime;
+
+        void record(long queueNanos, long executeNanos) {
+            this.queueNanos.add(queueNanos);
+            this.executeNanos.add(executeNanos);
+            this.count.increment();
+        }
+
+        void update() {
+            long count = this.count.sum();
+            long queueNanos = this.queueNanos.sum();
+            long executeNanos = this.executeNanos.sum();
+
+            long jobs = count - this.lastCount;
+
+            if (jobs > 0) {
+                double queueTime = (double) (queueNanos - this.lastQueueNanos) / jobs;
+                double executeTime = (double) (executeNanos - this.lastExecuteNanos) / jobs;
+
+                this.queueTime = this.queueTime == 0.0 ? queueTime : mix(this.queueTime, queueTime);
+                this.executeTime = this.executeTime == 0.0 ? executeTime : mix(this.executeTime, executeTime);
+            }
+
+            this.lastCount = count;
+            this.lastQueueNanos = queueNanos;
+            this.lastExecuteNanos = executeNanos;
+        }
+    }
+}
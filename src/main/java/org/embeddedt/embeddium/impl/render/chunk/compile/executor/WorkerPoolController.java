@@ -0,0 +1,111 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.executor;
+
+/**
+ * Decides when the chunk builder should start or retire worker threads. It is driven once per frame from the render
+ * thread, and looks at how backlogged the job queue is, how many workers are busy, and how long frames are taking.
+ *
+ * <ul>
+ *     <li>A worker is added when every active worker is busy and still has another job waiting for it, for a
+ *     sustained number of frames.</li>
+ *     <li>A worker is retired when the pool has been completely idle for a long time, or when frame times regress
+ *     while all workers are busy (which usually means the workers are starving the render thread of CPU time).</li>
+ * </ul>
+ */
+class WorkerPoolController {
+    /**
+     * The number of consecutive backlogged frames required before a worker is added.
+     */
+    private static final int GROW_AFTER_FRAMES = 10;
+    /**
+     * The number of consecutive idle frames required before a worker is retired.
+     */
+    private static final int SHRINK_AFTER_IDLE_FRAMES = 600;
+    /**
+     * The minimum number of frames between two resizes, to give the previous change time to take effect.
+     */
+    private static final int RESIZE_COOLDOWN_FRAMES = 30;
+    /**
+     * How much slower recent frames must be than the long-term average before workers are retired.
+     */
+    private static final double FRAME_TIME_REGRESSION_FACTOR = 1.25;
+    /**
+     * Frame time regressions are ignored while frames are faster than this, since there is no point giving up
+     * build throughput to go beyond 60 FPS.
+     */
+    private static final long MIN_REGRESSION_FRAME_TIME_NANOS = 1_000_000_000L / 60;
+
+    private static final double SHORT_TERM_WEIGHT = 0.1;
+    private static final double LONG_TERM_WEIGHT = 0.005;
+
+    private double shortTermFrameTime;
+    private double longTermFrameTime;
+
+    private int backloggedFrames;
+    private int idleFrames;
+    private int cooldownFrames;
+
+    /**
+     * @param frameNanos  The time taken by the last frame, or a negative value if not known
+     * @param queuedJobs  The number of jobs waiting in the queue
+     * @param busyWorkers The number of workers currently executing a job
+     * @param workers     The number of active workers
+     * @param minWorkers  The minimum number of workers to keep alive
+     * @param maxWorkers  The maximum number of workers allowed
+     * @return The number of workers to add (if positive) or retire (if negative)
+     */
+    public int update(long frameNanos, int queuedJobs, int busyWorkers, int workers, int minWorkers, int maxWorkers) {
+        boolean regressed = this.updateFrameTime(frameNanos);
+
+        boolean saturated = busyWorkers >= workers;
+
+        this.backloggedFrames = (saturated && queuedJobs >= workers) ? this.backloggedFrames + 1 : 0;
+        this.idleFrames = (busyWorkers == 0 && queuedJobs == 0) ? this.idleFrames + 1 : 0;
+
+        if (this.cooldownFrames > 0) {
+            this.cooldownFrames--;
+            return 0;
+        }
+
+        int delta = 0;
+
+        if (regressed && saturated && workers > minWorkers) {
+            delta = -1;
+        } else if (this.idleFrames >= SHRINK_AFTER_IDLE_FRAMES && workers > minWorkers) {
+            delta = -1;
+        } else if (!regressed && this.backloggedFrames >= GROW_AFTER_FRAMES && workers < maxWorkers) {
+            delta = 1;
+        }
+
+        if (delta != 0) {
+            this.backloggedFrames = 0;
+            this.idleFrames = 0;
+            this.cooldownFrames = RESIZE_COOLDOWN_FRAMES;
+
+            // Forget about the old frame times, since they were measured with a different number of workers
+            this.longTermFrameTime = this.shortTermFrameTime;
+        }
+
+        return delta;
+    }
+
+    private boolean updateFrameTime(long frameNanos) {
+        if (frameNanos <= 0) {
+            return false;
+        }
+
+        double frameTime = frameNanos;
+
+        if (this.longTermFrameTime == 0.0) {
+            this.shortTermFrameTime = frameTime;
+            this.longTermFrameTime = frameTime;
+
+            return false;
+        }
+
+        this.shortTermFrameTime += (frameTime - this.shortTermFrameTime) * SHORT_TERM_WEIGHT;
+        this.longTermFrameTime += (frameTime - this.longTermFrameTime) * LONG_TERM_WEIGHT;
+
+        return this.shortTermFrameTime > MIN_REGRESSION_FRAME_TIME_NANOS &&
+                this.shortTermFrameTime > this.longTermFrameTime * FRAME_TIME_REGRESSION_FACTOR;
+    }
+}
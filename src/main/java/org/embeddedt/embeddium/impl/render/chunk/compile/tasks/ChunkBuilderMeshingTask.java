@@ -1,15 +1,20 @@
 package org.embeddedt.embeddium.impl.render.chunk.compile.tasks;
 
 import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import org.embeddedt.embeddium.impl.Embeddium;
 import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBufferSorter;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildBuffers;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.executor.ChunkBuilder;
 import org.embeddedt.embeddium.impl.render.chunk.compile.pipeline.BlockRenderCache;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildPhase;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildTimings;
 import org.embeddedt.embeddium.api.render.chunk.BlockRenderContext;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionInfo;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SubFaceVisibility;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
 import org.embeddedt.embeddium.impl.util.task.CancellationToken;
@@ -35,9 +40,14 @@ import net.neoforged.neoforge.client.model.data.ModelData;
 import org.embeddedt.embeddium.api.ChunkDataBuiltEvent;
 import org.embeddedt.embeddium.impl.chunk.MeshAppenderRenderer;
 import org.embeddedt.embeddium.impl.model.UnwrappableBakedModel;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Rebuilds all the meshes of a chunk for each given render pass with non-occluded blocks. The result is then uploaded
@@ -47,6 +57,11 @@ import java.util.Objects;
  * array allocations, they are pooled to ensure that the garbage collector doesn't become overloaded.
  */
 public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput> {
+    /**
+     * The maximum number of slabs a section is split into when meshing in parallel. Beyond this point, the cost of
+     * copying the world data for every slab outweighs the time saved.
+     */
+    private static final int MAX_SLABS = 4;
 
     private final RandomSource random = new SingleThreadedRandomSource(42L);
 
@@ -57,6 +72,9 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
 
     private Vec3 camera = Vec3.ZERO;
 
+    @Nullable
+    private ChunkBuilder parallelExecutor;
+
     public ChunkBuilderMeshingTask(RenderSection render, ChunkRenderContext renderContext, int time) {
         this.render = render;
         this.renderContext = renderContext;
@@ -68,6 +86,16 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
         return this;
     }
 
+    /**
+     * Allows the block loop of this task to be split into horizontal slabs which are meshed in parallel on the given
+     * executor. This reduces the time until the task completes, at the cost of some extra work to copy the world
+     * data for each worker and merge the results.
+     */
+    public ChunkBuilderMeshingTask withParallelExecutor(@Nullable ChunkBuilder executor) {
+        this.parallelExecutor = executor;
+        return this;
+    }
+
     @Override
     public ChunkBuildOutput execute(ChunkBuildContext buildContext, CancellationToken cancellationToken) {
         BuiltSectionInfo.Builder renderData = new BuiltSectionInfo.Builder();
@@ -76,17 +104,184 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
         ChunkBuildBuffers buffers = buildContext.buffers;
         buffers.init(renderData, this.render.getSectionIndex());
 
+        ChunkBuildTimings timings = buildContext.timings;
+
+        long copyStart = System.nanoTime();
+
         BlockRenderCache cache = buildContext.cache;
         cache.init(this.renderContext);
 
+        timings.record(ChunkBuildPhase.COPY, copyStart);
+
         WorldSlice slice = cache.getWorldSlice();
 
         int minX = this.render.getOriginX();
         int minY = this.render.getOriginY();
         int minZ = this.render.getOriginZ();
 
+        BitSet opaqueBlocks;
+
+        int slabCount = this.getSlabCount();
+
+        long blocksStart = System.nanoTime();
+
+        if (slabCount > 1) {
+            opaqueBlocks = this.renderSlabsInParallel(buildContext, renderData, slabCount, cancellationToken);
+        } else {
+            opaqueBlocks = this.renderBlocks(cache, buffers, renderData, this.random, minY, minY + 16, cancellationToken);
+        }
+
+        if (opaqueBlocks == null) {
+            return null;
+        }
+
+        timings.record(ChunkBuildPhase.BLOCKS, blocksStart);
+
+        BlockPos.MutableBlockPos blockPos = new BlockPos.MutableBlockPos(minX, minY, minZ);
+
+        for (int i = opaqueBlocks.nextSetBit(0); i >= 0; i = opaqueBlocks.nextSetBit(i + 1)) {
+            occluder.setOpaque(blockPos.set(minX + (i & 15), minY + (i >> 8), minZ + ((i >> 4) & 15)));
+        }
+
+        if (Embeddium.options().performance.useSubSectionOcclusionCulling) {
+            renderData.setSubFaceVisibility(SubFaceVisibility.compute(opaqueBlocks));
+        }
+
+        try {
+            BlockRenderContext context = new BlockRenderContext(slice);
+            MeshAppenderRenderer.renderMeshAppenders(renderContext.getMeshAppenders(), context.localSlice(), renderContext.getOrigin(), buffers);
+        } catch (ReportedException ex) {
+            // Propagate existing crashes (add context)
+            throw fillCrashInfo(ex.getReport(), slice, blockPos);
+        } catch (Throwable ex) {
+            // Create a new crash report for other exceptions (e.g. thrown in getQuads)
+            throw fillCrashInfo(CrashReport.forThrowable(ex, "Encountered exception while building chunk meshes"), slice, blockPos);
+        }
+
+        renderData.setGeometryBounds(buffers.getGeometryBounds());
+
+        Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
+
+        long meshStart = System.nanoTime();
+        long sortTime = 0;
+
+        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
+            BuiltSectionMeshParts mesh = buffers.createMesh(pass);
+
+            if (mesh != null) {
+                if(pass.isSorted()) {
+                    long sortStart = System.nanoTime();
+
+                    Objects.requireNonNull(mesh.getIndexData());
+                    ChunkBufferSorter.sort(
+                            mesh.getIndexData(),
+                            mesh.getSortState(),
+                            (float)camera.x - minX,
+                            (float)camera.y - minY,
+                            (float)camera.z - minZ
+                    );
+                    sortTime += System.nanoTime() - sortStart;
+                }
+                meshes.put(pass, mesh);
+                renderData.addRenderPass(pass);
+            }
+        }
+
+        timings.recordDuration(ChunkBuildPhase.MESH, System.nanoTime() - meshStart - sortTime);
+
+        if (sortTime > 0) {
+            timings.recordDuration(ChunkBuildPhase.SORT, sortTime);
+        }
+
+        renderData.setOcclusionData(occluder.resolve());
+
+        ChunkDataBuiltEvent.BUS.post(new ChunkDataBuiltEvent(renderData));
+
+        return new ChunkBuildOutput(this.render, renderData.build(), meshes, this.buildTime);
+    }
+
+    private int getSlabCount() {
+        if (this.parallelExecutor == null) {
+            return 1;
+        }
+
+        // Only idle workers can pick up a slab straight away, and splitting across busy ones would just leave the slabs
+        // waiting in the queue. The thread running this task takes part as well, so it is counted alongside them.
+        int idleWorkers = Math.max(0, this.parallelExecutor.getTotalThreadCount() - this.parallelExecutor.getBusyThreadCount());
+
+        return Math.min(MAX_SLABS, idleWorkers + 1);
+    }
+
+    /**
+     * Splits the section into horizontal slabs and renders them in parallel. The first slab is rendered directly into
+     * the given buffers, and every other slab is rendered into a set of spare buffers from the context and then
+     * appended in order, so that the final geometry is identical to rendering the whole section on one thread.
+     *
+     * @return The opaque blocks in the section, or null if the task was cancelled
+     */
+    private @Nullable BitSet renderSlabsInParallel(ChunkBuildContext buildContext, BuiltSectionInfo.Builder renderData, int slabCount,
+                                                  CancellationToken cancellationToken) {
+        int minY = this.render.getOriginY();
+
+        List<Slab> slabs = new ArrayList<>(slabCount);
+
+        for (int i = 0; i < slabCount; i++) {
+            int slabMinY = minY + ((16 * i) / slabCount);
+            int slabMaxY = minY + ((16 * (i + 1)) / slabCount);
+
+            if (i == 0) {
+                slabs.add(new Slab(buildContext, renderData, null, slabMinY, slabMaxY, cancellationToken));
+            } else {
+                slabs.add(new Slab(buildContext, null, buildContext.acquireSpareBuffers(), slabMinY, slabMaxY, cancellationToken));
+            }
+        }
+
+        try {
+            if (!Objects.requireNonNull(this.parallelExecutor).invokeAll(slabs, buildContext)) {
+                return null;
+            }
+
+            BitSet opaqueBlocks = new BitSet(4096);
+
+            for (var slab : slabs) {
+                if (slab.opaqueBlocks == null) {
+                    // The slab noticed that the task was cancelled
+                    return null;
+                }
+
+                if (slab.buffers != null) {
+                    buildContext.buffers.append(slab.buffers);
+                    renderData.addAll(slab.renderData);
+                }
+
+                opaqueBlocks.or(slab.opaqueBlocks);
+            }
+
+            return opaqueBlocks;
+        } finally {
+            for (var slab : slabs) {
+                if (slab.buffers != null) {
+                    buildContext.releaseSpareBuffers(slab.buffers);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders all blocks within the given vertical range of the section.
+     *
+     * @return The opaque blocks which were found, or null if the task was cancelled
+     */
+    private @Nullable BitSet renderBlocks(BlockRenderCache cache, ChunkBuildBuffers buffers, BuiltSectionInfo.Builder renderData,
+                                          RandomSource random, int minY, int maxY, CancellationToken cancellationToken) {
+        WorldSlice slice = cache.getWorldSlice();
+
+        BitSet opaqueBlocks = new BitSet(4096);
+
+        int minX = this.render.getOriginX();
+        int minZ = this.render.getOriginZ();
+
         int maxX = minX + 16;
-        int maxY = minY + 16;
         int maxZ = minZ + 16;
 
         // Initialise with minX/minY/minZ so initial getBlockState crash context is correct
@@ -153,13 +348,11 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
                         }
 
                         if (blockState.isSolidRender()) {
-                            occluder.setOpaque(blockPos);
+                            opaqueBlocks.set(((y & 15) << 8) | ((z & 15) << 4) | (x & 15));
                         }
                     }
                 }
             }
-
-            MeshAppenderRenderer.renderMeshAppenders(renderContext.getMeshAppenders(), context.localSlice(), renderContext.getOrigin(), buffers);
         } catch (ReportedException ex) {
             // Propagate existing crashes (add context)
             throw fillCrashInfo(ex.getReport(), slice, blockPos);
@@ -168,32 +361,61 @@ public class ChunkBuilderMeshingTask extends ChunkBuilderTask<ChunkBuildOutput>
             throw fillCrashInfo(CrashReport.forThrowable(ex, "Encountered exception while building chunk meshes"), slice, blockPos);
         }
 
-        Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
+        return opaqueBlocks;
+    }
 
-        for (TerrainRenderPass pass : DefaultTerrainRenderPasses.ALL) {
-            BuiltSectionMeshParts mesh = buffers.createMesh(pass);
+    /**
+     * A horizontal slice of the section which is rendered as one piece of a parallel build.
+     */
+    private class Slab implements Consumer<ChunkBuildContext> {
+        private final ChunkBuildContext ownerContext;
+        private final int minY, maxY;
+        private final CancellationToken cancellationToken;
+
+        private BuiltSectionInfo.Builder renderData;
+        private final ChunkBuildBuffers buffers;
+
+        private BitSet opaqueBlocks;
+
+        /**
+         * @param ownerContext The context of the thread which owns the task
+         * @param renderData   The render data to collect into, or null if the slab should collect into its own buffers
+         *                     to be merged later
+         * @param buffers      The buffers to render into when collecting separately, which are borrowed from the owner
+         */
+        private Slab(ChunkBuildContext ownerContext, @Nullable BuiltSectionInfo.Builder renderData, @Nullable ChunkBuildBuffers buffers,
+                     int minY, int maxY, CancellationToken cancellationToken) {
+            this.ownerContext = ownerContext;
+            this.renderData = renderData;
+            this.buffers = buffers;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.cancellationToken = cancellationToken;
+        }
 
-            if (mesh != null) {
-                if(pass.isSorted()) {
-                    Objects.requireNonNull(mesh.getIndexData());
-                    ChunkBufferSorter.sort(
-                            mesh.getIndexData(),
-                            mesh.getSortState(),
-                            (float)camera.x - minX,
-                            (float)camera.y - minY,
-                            (float)camera.z - minZ
-                    );
-                }
-                meshes.put(pass, mesh);
-                renderData.addRenderPass(pass);
+        @Override
+        public void accept(ChunkBuildContext context) {
+            // The owner's cache was already initialized for this section before the task was split
+            if (context != this.ownerContext) {
+                long copyStart = System.nanoTime();
+                context.cache.init(ChunkBuilderMeshingTask.this.renderContext);
+                context.timings.record(ChunkBuildPhase.COPY, copyStart);
             }
-        }
 
-        renderData.setOcclusionData(occluder.resolve());
+            ChunkBuildBuffers buffers;
 
-        ChunkDataBuiltEvent.BUS.post(new ChunkDataBuiltEvent(renderData));
+            if (this.renderData != null) {
+                buffers = this.ownerContext.buffers;
+            } else {
+                this.renderData = new BuiltSectionInfo.Builder();
 
-        return new ChunkBuildOutput(this.render, renderData.build(), meshes, this.buildTime);
+                buffers = Objects.requireNonNull(this.buffers);
+                buffers.init(this.renderData, ChunkBuilderMeshingTask.this.render.getSectionIndex());
+            }
+
+            this.opaqueBlocks = ChunkBuilderMeshingTask.this.renderBlocks(context.cache, buffers, this.renderData,
+                    new SingleThreadedRandomSource(42L), this.minY, this.maxY, this.cancellationToken);
+        }
     }
 
     private ReportedException fillCrashInfo(CrashReport report, WorldSlice slice, BlockPos pos) {
@@ -5,6 +5,7 @@ import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBufferSorter;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildContext;
 import org.embeddedt.embeddium.impl.render.chunk.compile.ChunkBuildOutput;
+import org.embeddedt.embeddium.impl.render.chunk.compile.timing.ChunkBuildPhase;
 import org.embeddedt.embeddium.impl.render.chunk.data.BuiltSectionMeshParts;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
 import org.embeddedt.embeddium.impl.util.NativeBuffer;
@@ -38,6 +39,7 @@ public class ChunkBuilderSortTask extends ChunkBuilderTask<ChunkBuildOutput> {
 
     @Override
     public ChunkBuildOutput execute(ChunkBuildContext context, CancellationToken cancellationSource) {
+        long sortStart = System.nanoTime();
         Map<TerrainRenderPass, BuiltSectionMeshParts> meshes = new Reference2ReferenceOpenHashMap<>();
         for(Map.Entry<TerrainRenderPass, TranslucentQuadAnalyzer.SortState> entry : translucentMeshes.entrySet()) {
             var sortBuffer = entry.getValue();
@@ -50,6 +52,7 @@ public class ChunkBuilderSortTask extends ChunkBuilderTask<ChunkBuildOutput> {
                     null
             ));
         }
+        context.timings.record(ChunkBuildPhase.SORT, sortStart);
         ChunkBuildOutput result = new ChunkBuildOutput(render, null, meshes, this.frame);
         result.setIndexOnlyUpload(true);
         return result;
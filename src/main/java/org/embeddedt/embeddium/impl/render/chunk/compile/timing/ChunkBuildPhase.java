@@ -0,0 +1,39 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.timing;
+
+/**
+ * The phases of a chunk build job which are timed separately.
+ */
+public enum ChunkBuildPhase {
+    /**
+     * Capturing the world data for a section on the render thread ({@code WorldSlice.prepare}).
+     */
+    PREPARE("Prep"),
+    /**
+     * Copying the captured world data into a worker's cache ({@code BlockRenderCache.init}).
+     */
+    COPY("Copy"),
+    /**
+     * Rendering every block in the section into the vertex buffers.
+     */
+    BLOCKS("Blocks"),
+    /**
+     * Copying the finished vertex buffers into meshes which can be uploaded.
+     */
+    MESH("Mesh"),
+    /**
+     * Sorting the translucent geometry of a section, either during a rebuild or as its own job.
+     */
+    SORT("Sort");
+
+    public static final ChunkBuildPhase[] VALUES = values();
+
+    private final String shortName;
+
+    ChunkBuildPhase(String shortName) {
+        this.shortName = shortName;
+    }
+
+    public String getShortName() {
+        return this.shortName;
+    }
+}
@@ -0,0 +1,44 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.timing;
+
+/**
+ * The time spent in each {@link ChunkBuildPhase} by a single thread. Each thread records into its own instance, so
+ * that timing a phase costs no more than two calls to {@link System#nanoTime()} and a few plain array writes.
+ */
+public class ChunkBuildTimings {
+    private final String threadName;
+
+    private final TimingHistogram[] histograms = new TimingHistogram[ChunkBuildPhase.VALUES.length];
+
+    public ChunkBuildTimings(String threadName) {
+        this.threadName = threadName;
+
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new TimingHistogram();
+        }
+    }
+
+    /**
+     * Records the time since the given start time against a phase. This must only be called by the owning thread.
+     *
+     * @param phase     The phase which was timed
+     * @param startTime The value of {@link System#nanoTime()} when the phase started
+     */
+    public void record(ChunkBuildPhase phase, long startTime) {
+        this.histograms[phase.ordinal()].record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Records a duration against a phase. This must only be called by the owning thread.
+     */
+    public void recordDuration(ChunkBuildPhase phase, long nanos) {
+        this.histograms[phase.ordinal()].record(nanos);
+    }
+
+    public TimingHistogram get(ChunkBuildPhase phase) {
+        return this.histograms[phase.ordinal()];
+    }
+
+    public String getThreadName() {
+        return this.threadName;
+    }
+}
@@ -0,0 +1,45 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.timing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Writes chunk build timings to a CSV file for offline analysis. Each row holds one non-empty histogram bucket, so
+ * that the full distribution of each phase on each thread can be reconstructed.
+ */
+public final class ChunkBuildTimingsExporter {
+    private static final String HEADER = "thread,phase,lower_ns,upper_ns,count";
+
+    private ChunkBuildTimingsExporter() {}
+
+    public static void writeCsv(Collection<ChunkBuildTimings> timings, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            for (var thread : timings) {
+                for (var phase : ChunkBuildPhase.VALUES) {
+                    var histogram = thread.get(phase);
+
+                    for (int bucket = 0; bucket < histogram.getBucketCount(); bucket++) {
+                        long count = histogram.getCount(bucket);
+
+                        if (count == 0) {
+                            continue;
+                        }
+
+                        writer.write(String.format(Locale.ROOT, "\"%s\",%s,%d,%d,%d", thread.getThreadName(), phase.name(),
+                                TimingHistogram.getBucketLowerBound(bucket), TimingHistogram.getBucketUpperBound(bucket), count));
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.embeddedt.embeddium.impl.render.chunk.compile.timing;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations with logarithmic buckets, in the style of HdrHistogram. Every power of two is split into
+ * {@link #SUB_BUCKET_COUNT} linear buckets, so each recorded value is kept with a relative error of at most 12.5%,
+ * while the whole range from one nanosecond to several minutes fits in a few hundred counters.
+ *
+ * <p>Recording is not thread-safe, and is intended to be done by a single thread. Other threads may read the counters
+ * at any time to build a snapshot, which is only approximate while values are still being recorded.</p>
+ */
+public class TimingHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest power of two which is tracked. Anything above this (roughly 36 minutes) is clamped.
+     */
+    private static final int MAX_EXPONENT = 41;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKET_COUNT = getBucketIndex(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long totalCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        nanos = Math.max(0, Math.min(nanos, MAX_VALUE));
+
+        this.counts[getBucketIndex(nanos)]++;
+
+        this.totalCount++;
+        this.totalNanos += nanos;
+        this.maxNanos = Math.max(this.maxNanos, nanos);
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     */
+    public void add(TimingHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts[i] += other.counts[i];
+        }
+
+        this.totalCount += other.totalCount;
+        this.totalNanos += other.totalNanos;
+        this.maxNanos = Math.max(this.maxNanos, other.maxNanos);
+    }
+
+    /**
+     * Removes the values recorded by an earlier snapshot of this histogram, leaving only those recorded since. The
+     * maximum cannot be removed, so it remains an upper bound.
+     */
+    public void subtract(TimingHistogram earlier) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts[i] = Math.max(0, this.counts[i] - earlier.counts[i]);
+        }
+
+        this.totalCount = Math.max(0, this.totalCount - earlier.totalCount);
+        this.totalNanos = Math.max(0, this.totalNanos - earlier.totalNanos);
+    }
+
+    public void copyFrom(TimingHistogram other) {
+        System.arraycopy(other.counts, 0, this.counts, 0, BUCKET_COUNT);
+
+        this.totalCount = other.totalCount;
+        this.totalNanos = other.totalNanos;
+        this.maxNanos = other.maxNanos;
+    }
+
+    public void clear() {
+        Arrays.fill(this.counts, 0L);
+
+        this.totalCount = 0;
+        this.totalNanos = 0;
+        this.maxNanos = 0;
+    }
+
+    public long getTotalCount() {
+        return this.totalCount;
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return this.totalCount == 0 ? 0.0 : (double) this.totalNanos / this.totalCount;
+    }
+
+    /**
+     * {@return the value below which the given fraction of recorded values fall, or zero if nothing was recorded}
+     * The result is the upper bound of the bucket the percentile falls into.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.totalCount == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(this.totalCount * percentile));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += this.counts[i];
+
+            if (seen >= target) {
+                return Math.min(getBucketUpperBound(i) - 1, this.maxNanos);
+            }
+        }
+
+        return this.maxNanos;
+    }
+
+    public int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    public long getCount(int bucket) {
+        return this.counts[bucket];
+    }
+
+    /**
+     * {@return the smallest value which falls into the given bucket}
+     */
+    public static long getBucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + (SUB_BUCKET_BITS - 1);
+        long subBucket = SUB_BUCKET_COUNT | (bucket & (SUB_BUCKET_COUNT - 1));
+
+        return subBucket << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * {@return the smallest value which falls into the next bucket}
+     */
+    public static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket + 1;
+        }
+
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + (SUB_BUCKET_BITS - 1);
+
+        return getBucketLowerBound(bucket) + (1L << (exponent - SUB_BUCKET_BITS));
+    }
+
+    private static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | subBucket;
+    }
+}
@@ -3,6 +3,8 @@ package org.embeddedt.embeddium.impl.render.chunk.data;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import org.embeddedt.embeddium.api.render.chunk.SectionInfoBuilder;
 import org.embeddedt.embeddium.impl.render.chunk.RenderSectionFlags;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SectionBounds;
+import org.embeddedt.embeddium.impl.render.chunk.occlusion.SubFaceVisibility;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.VisibilityEncoding;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.DefaultTerrainRenderPasses;
 import org.embeddedt.embeddium.impl.render.chunk.terrain.TerrainRenderPass;
@@ -29,6 +31,16 @@ public class BuiltSectionInfo {
     public final int flags;
     public final long visibilityData;
 
+    /**
+     * The visibility data of each sub-face, as described by {@link SubFaceVisibility}, or null if it was not computed.
+     */
+    public final int @Nullable[] subFaceVisibility;
+
+    /**
+     * The bounds of everything the section draws, as described by {@link SectionBounds}.
+     */
+    public final int geometryBounds;
+
     public final BlockEntity @Nullable[] globalBlockEntities;
     public final BlockEntity @Nullable[] culledBlockEntities;
     public final TextureAtlasSprite @Nullable[] animatedSprites;
@@ -37,7 +49,9 @@ public class BuiltSectionInfo {
                              @NotNull Collection<BlockEntity> globalBlockEntities,
                              @NotNull Collection<BlockEntity> culledBlockEntities,
                              @NotNull Collection<TextureAtlasSprite> animatedSprites,
-                             @NotNull VisibilitySet occlusionData) {
+                             @NotNull VisibilitySet occlusionData,
+                             int @Nullable[] subFaceVisibility,
+                             int geometryBounds) {
         this.globalBlockEntities = toArray(globalBlockEntities, BlockEntity[]::new);
         this.culledBlockEntities = toArray(culledBlockEntities, BlockEntity[]::new);
         this.animatedSprites = toArray(animatedSprites, TextureAtlasSprite[]::new);
@@ -59,6 +73,10 @@ public class BuiltSectionInfo {
         this.flags = flags;
 
         this.visibilityData = VisibilityEncoding.encode(occlusionData);
+        this.subFaceVisibility = subFaceVisibility;
+
+        // Block entities are drawn whenever their section is, and can draw anything anywhere
+        this.geometryBounds = culledBlockEntities.isEmpty() ? geometryBounds : SectionBounds.FULL;
     }
 
     public static class Builder implements SectionInfoBuilder {
@@ -68,6 +86,8 @@ public class BuiltSectionInfo {
         private final Set<TextureAtlasSprite> animatedSprites = new ObjectOpenHashSet<>();
 
         private VisibilitySet occlusionData;
+        private int[] subFaceVisibility;
+        private int geometryBounds = SectionBounds.FULL;
 
         public void addRenderPass(TerrainRenderPass pass) {
             this.blockRenderPasses.add(pass);
@@ -77,6 +97,14 @@ public class BuiltSectionInfo {
             this.occlusionData = data;
         }
 
+        public void setSubFaceVisibility(int[] data) {
+            this.subFaceVisibility = data;
+        }
+
+        public void setGeometryBounds(int bounds) {
+            this.geometryBounds = bounds;
+        }
+
         @Override
         public void addSprite(TextureAtlasSprite sprite) {
             if (SpriteUtil.hasAnimation(sprite)) {
@@ -95,8 +123,18 @@ public class BuiltSectionInfo {
             this.globalBlockEntities.removeIf(filter);
         }
 
+        /**
+         * Adds the block entities and sprites collected by another builder to this one. Block entities are added
+         * after those already present.
+         */
+        public void addAll(Builder other) {
+            this.globalBlockEntities.addAll(other.globalBlockEntities);
+            this.culledBlockEntities.addAll(other.culledBlockEntities);
+            this.animatedSprites.addAll(other.animatedSprites);
+        }
+
         public BuiltSectionInfo build() {
-            return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.occlusionData);
+            return new BuiltSectionInfo(this.blockRenderPasses, this.globalBlockEntities, this.culledBlockEntities, this.animatedSprites, this.occlusionData, this.subFaceVisibility, this.geometryBounds);
         }
     }
 
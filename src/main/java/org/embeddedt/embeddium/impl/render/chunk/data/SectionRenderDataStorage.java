@@ -3,6 +3,7 @@ package org.embeddedt.embeddium.impl.render.chunk.data;
 import org.embeddedt.embeddium.impl.gl.arena.GlBufferSegment;
 import org.embeddedt.embeddium.impl.gl.util.VertexRange;
 import org.embeddedt.embeddium.impl.model.quad.properties.ModelQuadFacing;
+import org.embeddedt.embeddium.impl.render.chunk.DrawCommandCache;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.jetbrains.annotations.Nullable;
 
@@ -14,12 +15,16 @@ public class SectionRenderDataStorage {
 
     private final long pMeshDataArray;
 
+    private final DrawCommandCache drawCommandCache = new DrawCommandCache();
+
     public SectionRenderDataStorage() {
         this.pMeshDataArray = SectionRenderDataUnsafe.allocateHeap(RenderRegion.REGION_SIZE);
     }
 
     public void setMeshes(int localSectionIndex,
                           GlBufferSegment allocation, @Nullable GlBufferSegment indexAllocation, VertexRange[] ranges) {
+        this.drawCommandCache.invalidate();
+
         if (this.allocations[localSectionIndex] != null) {
             this.allocations[localSectionIndex].delete();
             this.allocations[localSectionIndex] = null;
@@ -67,6 +72,8 @@ public class SectionRenderDataStorage {
     }
 
     public void removeMeshes(int localSectionIndex) {
+        this.drawCommandCache.invalidate();
+
         if (this.allocations[localSectionIndex] != null) {
             this.allocations[localSectionIndex].delete();
             this.allocations[localSectionIndex] = null;
@@ -78,6 +85,8 @@ public class SectionRenderDataStorage {
     }
 
     public void removeIndexBuffer(int localSectionIndex) {
+        this.drawCommandCache.invalidate();
+
         if (this.indexAllocations[localSectionIndex] != null) {
             this.indexAllocations[localSectionIndex].delete();
             this.indexAllocations[localSectionIndex] = null;
@@ -101,6 +110,8 @@ public class SectionRenderDataStorage {
     }
 
     public void onBufferResized() {
+        this.drawCommandCache.invalidate();
+
         for (int sectionIndex = 0; sectionIndex < RenderRegion.REGION_SIZE; sectionIndex++) {
             this.updateMeshes(sectionIndex);
         }
@@ -130,6 +141,13 @@ public class SectionRenderDataStorage {
         }
     }
 
+    /**
+     * {@return the draw commands last generated from these meshes} These are invalidated whenever the meshes change.
+     */
+    public DrawCommandCache getDrawCommandCache() {
+        return this.drawCommandCache;
+    }
+
     public long getDataPointer(int sectionIndex) {
         return SectionRenderDataUnsafe.heapPointer(this.pMeshDataArray, sectionIndex);
     }
@@ -151,5 +169,7 @@ public class SectionRenderDataStorage {
         Arrays.fill(this.indexAllocations, null);
 
         SectionRenderDataUnsafe.freeHeap(this.pMeshDataArray);
+
+        this.drawCommandCache.delete();
     }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import org.embeddedt.embeddium.impl.util.iterator.ByteArrayIterator;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+
 public class ChunkRenderList {
     private final RenderRegion region;
 
@@ -81,6 +83,24 @@ public class ChunkRenderList {
         return new ByteArrayIterator(this.sectionsWithEntities, this.sectionsWithEntitiesCount);
     }
 
+    /**
+     * {@return true if the sections with geometry in this list are exactly the given sections, in the same order}
+     */
+    public boolean hasSectionsWithGeometry(byte[] sections, int count) {
+        return this.sectionsWithGeometryCount == count &&
+                Arrays.equals(this.sectionsWithGeometry, 0, count, sections, 0, count);
+    }
+
+    /**
+     * Copies the indices of the sections with geometry in this list into the given array.
+     *
+     * @return The number of sections copied
+     */
+    public int copySectionsWithGeometry(byte[] dest) {
+        System.arraycopy(this.sectionsWithGeometry, 0, dest, 0, this.sectionsWithGeometryCount);
+        return this.sectionsWithGeometryCount;
+    }
+
     public int getSectionsWithGeometryCount() {
         return this.sectionsWithGeometryCount;
     }
@@ -0,0 +1,146 @@
+package org.embeddedt.embeddium.impl.render.chunk.lists;
+
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of sections waiting for a chunk update. Sections which were inside the view frustum when they
+ * were queued always come before those outside it, and within each group, sections closer to the camera come first.
+ * This ensures that the sections the player is looking at are meshed first, even if the graph search discovered
+ * them after other sections.
+ *
+ * <p>The priority of each section is computed once when it is added, using the camera position the queue was created
+ * with. Since the rebuild lists are recreated whenever the camera moves, this keeps the ordering up-to-date without
+ * ever having to re-key the heap.</p>
+ */
+public class SectionRebuildQueue {
+    private static final long OUTSIDE_FRUSTUM = 1L << 32;
+
+    private final float cameraX, cameraY, cameraZ;
+
+    private RenderSection[] sections = new RenderSection[64];
+    private long[] priorities = new long[64];
+
+    private int size;
+
+    public SectionRebuildQueue(float cameraX, float cameraY, float cameraZ) {
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+    }
+
+    public void add(RenderSection section, boolean inFrustum) {
+        if (this.size >= this.sections.length) {
+            this.grow();
+        }
+
+        this.siftUp(this.size++, section, this.getPriority(section, inFrustum));
+    }
+
+    /**
+     * Removes and returns the section with the highest priority.
+     *
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public RenderSection remove() {
+        if (this.size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        var sections = this.sections;
+        var result = sections[0];
+
+        int last = --this.size;
+
+        var tailSection = sections[last];
+        var tailPriority = this.priorities[last];
+
+        sections[last] = null;
+
+        if (last > 0) {
+            this.siftDown(0, tailSection, tailPriority);
+        }
+
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        Arrays.fill(this.sections, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private long getPriority(RenderSection section, boolean inFrustum) {
+        float distance = section.getSquaredDistance(this.cameraX, this.cameraY, this.cameraZ);
+
+        // The bits of a positive float sort the same way as the value itself, so the distance can be packed below
+        // the frustum flag and both compared with a single integer comparison.
+        return (inFrustum ? 0L : OUTSIDE_FRUSTUM) | Integer.toUnsignedLong(Float.floatToRawIntBits(distance));
+    }
+
+    private void siftUp(int index, RenderSection section, long priority) {
+        var sections = this.sections;
+        var priorities = this.priorities;
+
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+
+            if (priorities[parent] <= priority) {
+                break;
+            }
+
+            sections[index] = sections[parent];
+            priorities[index] = priorities[parent];
+
+            index = parent;
+        }
+
+        sections[index] = section;
+        priorities[index] = priority;
+    }
+
+    private void siftDown(int index, RenderSection section, long priority) {
+        var sections = this.sections;
+        var priorities = this.priorities;
+
+        int size = this.size;
+        int half = size >>> 1;
+
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+
+            if (right < size && priorities[right] < priorities[child]) {
+                child = right;
+            }
+
+            if (priority <= priorities[child]) {
+                break;
+            }
+
+            sections[index] = sections[child];
+            priorities[index] = priorities[child];
+
+            index = child;
+        }
+
+        sections[index] = section;
+        priorities[index] = priority;
+    }
+
+    private void grow() {
+        int length = this.sections.length << 1;
+
+        this.sections = Arrays.copyOf(this.sections, length);
+        this.priorities = Arrays.copyOf(this.priorities, length);
+    }
+}
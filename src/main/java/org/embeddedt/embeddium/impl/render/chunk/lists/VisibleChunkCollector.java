@@ -1,40 +1,57 @@
 package org.embeddedt.embeddium.impl.render.chunk.lists;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.embeddedt.embeddium.impl.Embeddium;
 import org.embeddedt.embeddium.impl.render.chunk.ChunkUpdateType;
 import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
-import java.util.ArrayDeque;
 import java.util.EnumMap;
 import java.util.Map;
-import java.util.Queue;
 import org.embeddedt.embeddium.impl.render.chunk.occlusion.OcclusionCuller;
 import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.embeddedt.embeddium.impl.sodium.FlawlessFrames;
 
 public class VisibleChunkCollector implements OcclusionCuller.Visitor {
     private final ObjectArrayList<ChunkRenderList> sortedRenderLists;
-    private final EnumMap<ChunkUpdateType, ArrayDeque<RenderSection>> sortedRebuildLists;
+    private final EnumMap<ChunkUpdateType, SectionRebuildQueue> sortedRebuildLists;
 
     private final int frame;
+    private final int renderListIndex;
 
     private final boolean ignoreQueueSizeLimit;
+    private final boolean sortByDistance;
 
-    public VisibleChunkCollector(int frame) {
+    private final float cameraX, cameraY, cameraZ;
+
+    public VisibleChunkCollector(int frame, float cameraX, float cameraY, float cameraZ) {
+        this(frame, 0, cameraX, cameraY, cameraZ);
+    }
+
+    /**
+     * @param renderListIndex Which of each region's render lists to fill in, which must not be the one currently
+     *                        being drawn
+     */
+    public VisibleChunkCollector(int frame, int renderListIndex, float cameraX, float cameraY, float cameraZ) {
         this.frame = frame;
+        this.renderListIndex = renderListIndex;
 
         this.sortedRenderLists = new ObjectArrayList<>();
         this.sortedRebuildLists = new EnumMap<>(ChunkUpdateType.class);
         this.ignoreQueueSizeLimit = FlawlessFrames.isActive();
+        this.sortByDistance = Embeddium.options().performance.useFrontToBackOrdering;
+
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
 
         for (var type : ChunkUpdateType.values()) {
-            this.sortedRebuildLists.put(type, new ArrayDeque<>());
+            this.sortedRebuildLists.put(type, new SectionRebuildQueue(cameraX, cameraY, cameraZ));
         }
     }
 
     @Override
-    public void visit(RenderSection section, boolean visible) {
+    public void visit(RenderSection section, boolean visible, boolean geometryVisible) {
         RenderRegion region = section.getRegion();
-        ChunkRenderList renderList = region.getRenderList();
+        ChunkRenderList renderList = region.getRenderList(this.renderListIndex);
 
         // Even if a section does not have render objects, we must ensure the render list is initialized and put
         // into the sorted queue of lists, so that we maintain the correct order of draw calls.
@@ -44,30 +61,50 @@ public class VisibleChunkCollector implements OcclusionCuller.Visitor {
             this.sortedRenderLists.add(renderList);
         }
 
-        if (visible && section.getFlags() != 0) {
+        if (geometryVisible && section.getFlags() != 0) {
             renderList.add(section);
         }
 
-        this.addToRebuildLists(section);
+        // The priority of a rebuild depends on whether the section is on screen, not on where its old geometry was
+        this.addToRebuildLists(section, visible);
     }
 
-    private void addToRebuildLists(RenderSection section) {
+    private void addToRebuildLists(RenderSection section, boolean visible) {
         ChunkUpdateType type = section.getPendingUpdate();
 
         if (type != null && section.getBuildCancellationToken() == null) {
-            Queue<RenderSection> queue = this.sortedRebuildLists.get(type);
+            SectionRebuildQueue queue = this.sortedRebuildLists.get(type);
 
             if (this.ignoreQueueSizeLimit || queue.size() < type.getMaximumQueueSize()) {
-                queue.add(section);
+                queue.add(section, visible);
             }
         }
     }
 
     public SortedRenderLists createRenderLists() {
+        if (this.sortByDistance) {
+            // The graph search finds regions in the order it first reaches one of their sections, which is not always
+            // the order of their distance from the camera
+            this.sortedRenderLists.sort((a, b) -> Float.compare(this.getDistanceSq(a.getRegion()), this.getDistanceSq(b.getRegion())));
+        }
+
         return new SortedRenderLists(this.sortedRenderLists);
     }
 
-    public Map<ChunkUpdateType, ArrayDeque<RenderSection>> getRebuildLists() {
+    // The squared distance from the camera to the nearest point of the region
+    private float getDistanceSq(RenderRegion region) {
+        float dx = distanceToRange(this.cameraX, region.getOriginX(), RenderRegion.REGION_WIDTH * 16);
+        float dy = distanceToRange(this.cameraY, region.getOriginY(), RenderRegion.REGION_HEIGHT * 16);
+        float dz = distanceToRange(this.cameraZ, region.getOriginZ(), RenderRegion.REGION_LENGTH * 16);
+
+        return (dx * dx) + (dy * dy) + (dz * dz);
+    }
+
+    private static float distanceToRange(float value, int min, int length) {
+        return Math.max(0.0f, Math.max(min - value, value - (min + length)));
+    }
+
+    public Map<ChunkUpdateType, SectionRebuildQueue> getRebuildLists() {
         return this.sortedRebuildLists;
     }
 }
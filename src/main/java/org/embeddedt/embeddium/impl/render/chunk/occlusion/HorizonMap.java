@@ -0,0 +1,289 @@
+package org.embeddedt.embeddium.impl.render.chunk.occlusion;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the highest run of solid sections in each column of loaded sections, and uses it to build a horizon around
+ * the camera, so that sections which lie entirely below the horizon (such as the underground of distant terrain seen
+ * from above) can be skipped.
+ *
+ * <p>A section is solid if it has been built and has no path of visibility between any of its faces, which means
+ * that every block on its surface is opaque. The run in each column starts at its highest solid section, and extends
+ * down for as long as the sections below it are also solid.</p>
+ *
+ * <p>The horizon is split into bins by the direction around the camera. Each bin holds the steepest line of sight
+ * (as a slope) which is guaranteed to hit a solid run lying across the entire bin, along with how far away and how
+ * low that run reaches. A box is below the horizon if, in every bin it touches, every line of sight to it is shallower
+ * than that slope, passes through the run before reaching the box, and stays above the bottom of the run while
+ * doing so. Only the steepest run is kept for each bin, so this can miss some boxes which are hidden, but it will
+ * never hide a box which is not.</p>
+ *
+ * <p>The horizon only depends on the position of the camera and not its orientation, so it is only rebuilt when the
+ * camera moves or a column changes. Once it has been built, {@link #isSectionHidden} only reads from it, and is safe to
+ * call from any number of threads at once.</p>
+ */
+class HorizonMap {
+    // The directions around the camera are measured with a "pseudo-angle" which runs from 0 to 4 in the same order as
+    // the true angle, but is much cheaper to compute. Each bin covers at most ~0.002 radians.
+    private static final int BIN_COUNT = 4096;
+    private static final float BINS_PER_UNIT = BIN_COUNT / 4.0f;
+
+    private final Long2ReferenceMap<RenderSection> sections;
+    private final Level world;
+
+    // The solid run of each column, packed as the block heights of its top and bottom. Columns without any solid
+    // sections are not present.
+    private final Long2LongOpenHashMap columns = new Long2LongOpenHashMap();
+    private final LongOpenHashSet dirtyColumns = new LongOpenHashSet();
+
+    private final float[] binSlope = new float[BIN_COUNT];
+    private final float[] binDistance = new float[BIN_COUNT];
+    private final float[] binBottom = new float[BIN_COUNT];
+
+    private boolean valid;
+    private double cameraX, cameraY, cameraZ;
+
+    HorizonMap(Long2ReferenceMap<RenderSection> sections, Level world) {
+        this.sections = sections;
+        this.world = world;
+    }
+
+    /**
+     * Marks the column containing the given section as needing to be re-scanned before the horizon is next built.
+     */
+    public void markColumnDirty(int x, int z) {
+        this.dirtyColumns.add(ChunkPos.asLong(x, z));
+    }
+
+    /**
+     * Rebuilds the horizon around the given camera position, if the camera has moved or any columns have changed
+     * since it was last built.
+     */
+    public void update(double cameraX, double cameraY, double cameraZ) {
+        if (!this.dirtyColumns.isEmpty()) {
+            this.updateDirtyColumns();
+            this.valid = false;
+        }
+
+        if (this.valid && this.cameraX == cameraX && this.cameraY == cameraY && this.cameraZ == cameraZ) {
+            return;
+        }
+
+        this.cameraX = cameraX;
+        this.cameraY = cameraY;
+        this.cameraZ = cameraZ;
+
+        this.build();
+        this.valid = true;
+    }
+
+    public int getColumnCount() {
+        return this.columns.size();
+    }
+
+    private void updateDirtyColumns() {
+        LongIterator it = this.dirtyColumns.iterator();
+
+        while (it.hasNext()) {
+            long key = it.nextLong();
+
+            int x = ChunkPos.getX(key);
+            int z = ChunkPos.getZ(key);
+
+            int top = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+
+            for (int y = this.world.getMaxSectionY() - 1; y >= this.world.getMinSectionY(); y--) {
+                boolean solid = this.isSolid(x, y, z);
+
+                if (top == Integer.MIN_VALUE) {
+                    if (solid) {
+                        top = SectionPos.sectionToBlockCoord(y + 1);
+                        bottom = SectionPos.sectionToBlockCoord(y);
+                    }
+                } else if (solid) {
+                    bottom = SectionPos.sectionToBlockCoord(y);
+                } else {
+                    break;
+                }
+            }
+
+            if (top == Integer.MIN_VALUE) {
+                this.columns.remove(key);
+            } else {
+                this.columns.put(key, ((long) top << 32) | (bottom & 0xFFFFFFFFL));
+            }
+        }
+
+        this.dirtyColumns.clear();
+    }
+
+    private boolean isSolid(int x, int y, int z) {
+        var section = this.sections.get(SectionPos.asLong(x, y, z));
+
+        return section != null && section.isBuilt() && section.getVisibilityData() == VisibilityEncoding.NULL;
+    }
+
+    private void build() {
+        Arrays.fill(this.binSlope, Float.NEGATIVE_INFINITY);
+
+        var it = this.columns.long2LongEntrySet().fastIterator();
+
+        while (it.hasNext()) {
+            Long2LongMap.Entry entry = it.next();
+
+            long key = entry.getLongKey();
+            long run = entry.getLongValue();
+
+            float minX = (float) (SectionPos.sectionToBlockCoord(ChunkPos.getX(key)) - this.cameraX);
+            float minZ = (float) (SectionPos.sectionToBlockCoord(ChunkPos.getZ(key)) - this.cameraZ);
+
+            float top = (float) ((int) (run >>> 32) - this.cameraY);
+            float bottom = (float) ((int) run - this.cameraY);
+
+            this.addColumn(minX, minZ, minX + 16.0f, minZ + 16.0f, top, bottom);
+        }
+    }
+
+    private void addColumn(float minX, float minZ, float maxX, float maxZ, float top, float bottom) {
+        float nearest = nearestDistance(minX, minZ, maxX, maxZ);
+
+        if (nearest <= 0.0f) {
+            // The camera is above or below this column, so it does not form part of the horizon
+            return;
+        }
+
+        float farthest = farthestDistance(minX, minZ, maxX, maxZ);
+
+        // The steepest slope at which a line of sight is below the top of the column, wherever it crosses it
+        float slope = top >= 0.0f ? top / farthest : top / nearest;
+
+        float centerAngle = pseudoAngle((minX + maxX) * 0.5f, (minZ + maxZ) * 0.5f);
+
+        float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < 4; i++) {
+            float delta = angleDelta(pseudoAngle((i & 1) == 0 ? minX : maxX, (i & 2) == 0 ? minZ : maxZ), centerAngle);
+
+            lo = Math.min(lo, delta);
+            hi = Math.max(hi, delta);
+        }
+
+        // Only the bins which lie entirely within the column's extent
+        int first = (int) Math.ceil((centerAngle + lo) * BINS_PER_UNIT);
+        int last = (int) Math.floor((centerAngle + hi) * BINS_PER_UNIT) - 1;
+
+        for (int bin = first; bin <= last; bin++) {
+            int index = Math.floorMod(bin, BIN_COUNT);
+
+            if (slope > this.binSlope[index]) {
+                this.binSlope[index] = slope;
+                this.binDistance[index] = farthest;
+                this.binBottom[index] = bottom;
+            }
+        }
+    }
+
+    /**
+     * {@return true if everything in the given section lies entirely below the horizon}
+     */
+    public boolean isSectionHidden(int x, int y, int z) {
+        float minX = (float) (SectionPos.sectionToBlockCoord(x) - this.cameraX);
+        float minY = (float) (SectionPos.sectionToBlockCoord(y) - this.cameraY);
+        float minZ = (float) (SectionPos.sectionToBlockCoord(z) - this.cameraZ);
+
+        // Block models can extend up to one block outside the section
+        return this.isBoxHidden(minX - 1.0f, minY - 1.0f, minZ - 1.0f, minX + 17.0f, minY + 17.0f, minZ + 17.0f);
+    }
+
+    // The box is given relative to the camera position the horizon was last built for
+    private boolean isBoxHidden(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float nearest = nearestDistance(minX, minZ, maxX, maxZ);
+
+        if (nearest <= 0.0f) {
+            return false;
+        }
+
+        float farthest = farthestDistance(minX, minZ, maxX, maxZ);
+
+        // The steepest line of sight to any point in the box
+        float slope = maxY >= 0.0f ? maxY / nearest : maxY / farthest;
+
+        // The lowest height any line of sight to the box reaches before arriving at it
+        float lowest = Math.min(0.0f, minY);
+
+        float centerAngle = pseudoAngle((minX + maxX) * 0.5f, (minZ + maxZ) * 0.5f);
+
+        float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < 4; i++) {
+            float delta = angleDelta(pseudoAngle((i & 1) == 0 ? minX : maxX, (i & 2) == 0 ? minZ : maxZ), centerAngle);
+
+            lo = Math.min(lo, delta);
+            hi = Math.max(hi, delta);
+        }
+
+        // Every bin which the box touches
+        int first = (int) Math.floor((centerAngle + lo) * BINS_PER_UNIT);
+        int last = (int) Math.floor((centerAngle + hi) * BINS_PER_UNIT);
+
+        for (int bin = first; bin <= last; bin++) {
+            int index = Math.floorMod(bin, BIN_COUNT);
+
+            if (slope > this.binSlope[index] || this.binDistance[index] >= nearest || this.binBottom[index] > lowest) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // The horizontal distance from the camera to the nearest point of the rectangle, or zero if the camera is inside it
+    private static float nearestDistance(float minX, float minZ, float maxX, float maxZ) {
+        float dx = Math.max(0.0f, Math.max(minX, -maxX));
+        float dz = Math.max(0.0f, Math.max(minZ, -maxZ));
+
+        return (float) Math.sqrt((dx * dx) + (dz * dz));
+    }
+
+    private static float farthestDistance(float minX, float minZ, float maxX, float maxZ) {
+        float dx = Math.max(Math.abs(minX), Math.abs(maxX));
+        float dz = Math.max(Math.abs(minZ), Math.abs(maxZ));
+
+        return (float) Math.sqrt((dx * dx) + (dz * dz));
+    }
+
+    // Maps the direction of (x, z) onto [0, 4), in the same order as its angle
+    private static float pseudoAngle(float x, float z) {
+        float p = z / (Math.abs(x) + Math.abs(z));
+
+        if (x < 0.0f) {
+            return 2.0f - p;
+        }
+
+        return p < 0.0f ? 4.0f + p : p;
+    }
+
+    // The difference between two pseudo-angles, wrapped to (-2, 2]. Neither a column nor a box which does not contain
+    // the camera can cover half of the directions around it, so this never wraps the wrong way.
+    private static float angleDelta(float angle, float center) {
+        float delta = angle - center;
+
+        if (delta > 2.0f) {
+            delta -= 4.0f;
+        } else if (delta <= -2.0f) {
+            delta += 4.0f;
+        }
+
+        return delta;
+    }
+}
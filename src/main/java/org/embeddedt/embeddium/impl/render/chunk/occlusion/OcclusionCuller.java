@@ -1,32 +1,102 @@
 package org.embeddedt.embeddium.impl.render.chunk.occlusion;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
 import org.embeddedt.embeddium.impl.render.viewport.CameraTransform;
 import org.embeddedt.embeddium.impl.render.viewport.Viewport;
-import org.embeddedt.embeddium.impl.util.collections.DoubleBufferedQueue;
-import org.embeddedt.embeddium.impl.util.collections.ReadQueue;
-import org.embeddedt.embeddium.impl.util.collections.WriteQueue;
+import org.embeddedt.embeddium.impl.render.viewport.frustum.Frustum;
+import org.embeddedt.embeddium.impl.util.collections.DoubleBufferedIntQueue;
+import org.embeddedt.embeddium.impl.util.collections.IntReadQueue;
+import org.embeddedt.embeddium.impl.util.collections.IntWriteQueue;
 import net.minecraft.core.SectionPos;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.Level;
 import org.embeddedt.embeddium.api.render.chunk.RenderSectionDistanceFilter;
 import org.embeddedt.embeddium.api.render.chunk.RenderSectionDistanceFilterEvent;
-import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class OcclusionCuller {
     private final Long2ReferenceMap<RenderSection> sections;
+    private final SectionGraph graph;
     private final Level world;
 
-    private final DoubleBufferedQueue<RenderSection> queue = new DoubleBufferedQueue<>();
+    private final DoubleBufferedIntQueue queue = new DoubleBufferedIntQueue();
 
     private boolean isCameraInUnloadedSection;
 
-    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, Level world) {
+    // The sections reachable from the camera's section when the frustum is ignored, in the order the graph search
+    // found them. This stays valid until the camera leaves the section or the graph changes.
+    private final IntArrayList reachableSections = new IntArrayList();
+    private final IntArrayList hiddenSectionsWithUpdates = new IntArrayList();
+    private boolean reachableSectionsValid;
+
+    private long reachableOrigin;
+    private float reachableSearchDistance;
+    private boolean reachableUseOcclusionCulling;
+    private boolean reachableSubFaceSearch;
+
+    // The centers of the reachable sections relative to the origin of the camera's section, so that they can be tested
+    // against the frustum as a single batch
+    private float[] reachableCenterX = new float[0], reachableCenterY = new float[0], reachableCenterZ = new float[0];
+    private boolean[] reachableInFrustum = new boolean[0];
+
+    // The camera can move anywhere within its section without the reachable set being recomputed, which changes the
+    // distance to any other section by at most the length of the section's diagonal.
+    private static final float REACHABLE_DISTANCE_MARGIN = 16.0f * (float) Math.sqrt(3.0);
+
+    // Layers of the graph search with fewer sections than this are processed on the calling thread alone, as the
+    // cost of handing them to other threads would outweigh the benefit.
+    private static final int PARALLEL_LAYER_THRESHOLD = 1024;
+    private static final int PARALLEL_SPLIT_SIZE = 256;
+
+    private static final int NOT_VISIBLE = -1;
+    private static final int OCCLUDED = -2;
+    private static final int BELOW_HORIZON = -3;
+
+    private boolean parallelSearch;
+    private boolean canSplitLayers;
+
+    private boolean subFaceSearch;
+    private int visitedSectionCount;
+
+    // Whether the current search marks the sections it visits through their last reached frame, rather than their last
+    // visible frame. Searches which ignore the frustum must not mark sections outside it as visible.
+    private boolean markReached;
+
+    private int[] layerConnections = new int[PARALLEL_LAYER_THRESHOLD];
+
+    // Identifies the frustum results cached on each region as belonging to the current search. Only the low 30 bits
+    // are used, as the remaining bits hold the result itself.
+    private int frustumEpoch;
+
+    // Sections within this many sections of the camera (on each axis) are drawn as occluders, nearest first, until
+    // the limit is reached. Sections further away cover too little of the screen to be worth drawing.
+    private static final int OCCLUDER_RADIUS = 4;
+    private static final int MAX_OCCLUDERS = 256;
+
+    private final OcclusionRasterizer rasterizer = new OcclusionRasterizer();
+    private boolean useOccluders;
+
+    // The true position of the camera, which the occluders are drawn relative to
+    private double occluderCameraX, occluderCameraY, occluderCameraZ;
+
+    private int occludedSectionCount;
+
+    private final HorizonMap horizon;
+    private boolean useHorizon;
+
+    private int belowHorizonSectionCount;
+
+    public OcclusionCuller(Long2ReferenceMap<RenderSection> sections, SectionGraph graph, Level world) {
         this.sections = sections;
+        this.graph = graph;
         this.world = world;
+        this.horizon = new HorizonMap(sections, world);
     }
 
     public void findVisible(Visitor visitor,
@@ -34,70 +104,497 @@ public class OcclusionCuller {
                             float searchDistance,
                             boolean useOcclusionCulling,
                             int frame)
+    {
+        this.invalidate();
+        this.nextFrustumEpoch();
+        this.resetHiddenSectionCounts();
+        this.search(visitor, viewport, searchDistance, useOcclusionCulling, true, frame);
+    }
+
+    /**
+     * Like {@link #findVisible(Visitor, Viewport, float, boolean, int)}, but re-uses the result of the previous graph
+     * search for as long as the camera stays within the same section and the graph does not change. When only the
+     * camera's orientation (or its position within the section) has changed, this skips the graph search entirely and
+     * only re-tests the previously reachable sections against the frustum.
+     *
+     * <p>To make this possible, the graph search ignores the frustum, and allows for the camera moving anywhere within
+     * its section. The set of visible sections is therefore a superset of what {@link #findVisible} would produce, as
+     * sections can also be reached through those outside the frustum. Sections outside the frustum are only passed to
+     * the visitor if they have a pending update, and only after all the visible sections, so that they cannot crowd
+     * visible sections out of size-limited rebuild queues. They are not marked as visible, so they are not treated as
+     * such by {@link RenderSection#getLastVisibleFrame()}.</p>
+     */
+    public void findVisibleIncremental(Visitor visitor,
+                                       Viewport viewport,
+                                       float searchDistance,
+                                       boolean useOcclusionCulling,
+                                       int frame)
+    {
+        long origin = viewport.getChunkCoord().asLong();
+
+        if (!this.reachableSectionsValid || this.reachableOrigin != origin ||
+                this.reachableSearchDistance != searchDistance || this.reachableUseOcclusionCulling != useOcclusionCulling ||
+                this.reachableSubFaceSearch != this.subFaceSearch) {
+            this.findReachable(viewport, searchDistance, useOcclusionCulling, frame);
+
+            this.reachableSectionsValid = true;
+            this.reachableOrigin = origin;
+            this.reachableSearchDistance = searchDistance;
+            this.reachableUseOcclusionCulling = useOcclusionCulling;
+            this.reachableSubFaceSearch = this.subFaceSearch;
+        }
+
+        this.nextFrustumEpoch();
+        this.resetHiddenSectionCounts();
+
+        var graph = this.graph;
+        var sections = this.reachableSections;
+        var hiddenSections = this.hiddenSectionsWithUpdates;
+
+        var originPos = viewport.getChunkCoord();
+
+        boolean[] inFrustum = this.reachableInFrustum;
+        boolean batched = viewport.testCubes(this.reachableCenterX, this.reachableCenterY, this.reachableCenterZ, sections.size(),
+                originPos.minBlockX(), originPos.minBlockY(), originPos.minBlockZ(), CHUNK_SECTION_SIZE, inFrustum);
+
+        for (int i = 0; i < sections.size(); i++) {
+            int id = sections.getInt(i);
+
+            graph.setLastReachedFrame(id, frame);
+
+            boolean visible = isWithinRenderDistance(viewport.getTransform(), graph, id, searchDistance) &&
+                    (batched ? inFrustum[i] : this.isWithinFrustum(viewport, graph, id));
+
+            // The reachable set must not depend on the occluders or the horizon, as they change whenever the camera
+            // moves or turns, so they are only applied here
+            if (visible) {
+                int hidden = this.getHiddenReason(graph, id);
+
+                if (hidden != 0) {
+                    this.countHiddenSection(hidden);
+                    visible = false;
+                }
+            }
+
+            if (visible) {
+                graph.setLastVisibleFrame(id, frame);
+                visitor.visit(graph.getSection(id), true, this.isGeometryVisible(graph, id, viewport, searchDistance));
+            } else if (graph.getSection(id).getPendingUpdate() != null) {
+                hiddenSections.add(id);
+            }
+        }
+
+        // These are only reported so that their updates can be queued, and must not be marked as visible
+        for (int i = 0; i < hiddenSections.size(); i++) {
+            int id = hiddenSections.getInt(i);
+            visitor.visit(graph.getSection(id), false, false);
+        }
+
+        hiddenSections.clear();
+    }
+
+    /**
+     * Discards the result of the last graph search, forcing the next call to
+     * {@link #findVisibleIncremental(Visitor, Viewport, float, boolean, int)} to perform a new one. This must be called
+     * whenever sections are added or removed, or the visibility data of a section changes.
+     */
+    public void invalidate() {
+        this.reachableSectionsValid = false;
+        this.reachableSections.clear();
+    }
+
+    /**
+     * Draws the fully opaque sections around the camera into the occlusion rasterizer, so that the following search
+     * can skip sections which are entirely hidden behind them. This must be called before each search which should
+     * make use of it, as the occluders depend on the camera's position and orientation.
+     *
+     * <p>Only sections which have no path of visibility between any of their faces are used as occluders. As every
+     * block on the surface of such a section must be opaque, nothing can be seen through it. This is the same
+     * assumption the graph search itself relies on, so it will not hide anything that the graph search would not.</p>
+     *
+     * @param viewport The viewport of the following search
+     * @param cameraX The true position of the camera, which may differ from the position of the viewport
+     */
+    public void prepareOccluders(Viewport viewport, double cameraX, double cameraY, double cameraZ) {
+        var viewProjection = viewport.getViewProjection();
+
+        if (viewProjection == null) {
+            this.clearOccluders();
+            return;
+        }
+
+        var rasterizer = this.rasterizer;
+        rasterizer.beginOccluders(viewProjection);
+
+        this.occluderCameraX = cameraX;
+        this.occluderCameraY = cameraY;
+        this.occluderCameraZ = cameraZ;
+
+        int originX = SectionPos.blockToSectionCoord(cameraX);
+        int originY = SectionPos.blockToSectionCoord(cameraY);
+        int originZ = SectionPos.blockToSectionCoord(cameraZ);
+
+        int count = 0;
+
+        // Walk outwards one shell at a time, so that the nearest (and largest on screen) occluders are drawn first
+        for (int radius = 1; radius <= OCCLUDER_RADIUS && count < MAX_OCCLUDERS; radius++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    for (int dx = -radius; dx <= radius; dx++) {
+                        if (Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz))) != radius) {
+                            continue;
+                        }
+
+                        var section = this.getRenderSection(originX + dx, originY + dy, originZ + dz);
+
+                        if (section == null || !section.isBuilt() || section.getVisibilityData() != VisibilityEncoding.NULL) {
+                            continue;
+                        }
+
+                        float minX = (float) (section.getOriginX() - cameraX);
+                        float minY = (float) (section.getOriginY() - cameraY);
+                        float minZ = (float) (section.getOriginZ() - cameraZ);
+
+                        rasterizer.drawOccluder(minX, minY, minZ, minX + 16.0f, minY + 16.0f, minZ + 16.0f);
+                        count++;
+                    }
+                }
+            }
+        }
+
+        rasterizer.finishOccluders();
+
+        this.useOccluders = rasterizer.getOccluderCount() > 0;
+    }
+
+    /**
+     * Stops the following searches from using the occlusion rasterizer.
+     */
+    public void clearOccluders() {
+        this.useOccluders = false;
+    }
+
+    /**
+     * {@return the number of occluders drawn by the last call to {@link #prepareOccluders}}
+     */
+    public int getOccluderCount() {
+        return this.useOccluders ? this.rasterizer.getOccluderCount() : 0;
+    }
+
+    /**
+     * {@return the number of sections in the last search which were inside the frustum, but hidden by the occluders}
+     */
+    public int getOccludedSectionCount() {
+        return this.occludedSectionCount;
+    }
+
+    /**
+     * Rebuilds the horizon around the camera from the solid runs of each column, so that the following search can skip
+     * sections which lie entirely below it. This must be called before each search which should make use of it.
+     *
+     * @param cameraX The true position of the camera, which may differ from the position of the viewport
+     */
+    public void prepareHorizon(double cameraX, double cameraY, double cameraZ) {
+        this.horizon.update(cameraX, cameraY, cameraZ);
+        this.useHorizon = true;
+    }
+
+    /**
+     * Stops the following searches from using the horizon.
+     */
+    public void clearHorizon() {
+        this.useHorizon = false;
+    }
+
+    /**
+     * Marks the column containing the given section as changed. This must be called whenever a section is built,
+     * rebuilt, or removed.
+     */
+    public void onSectionInfoChanged(int x, int z) {
+        this.horizon.markColumnDirty(x, z);
+    }
+
+    /**
+     * {@return the number of columns which contribute to the horizon}
+     */
+    public int getHorizonColumnCount() {
+        return this.horizon.getColumnCount();
+    }
+
+    /**
+     * {@return the number of sections in the last search which were inside the frustum, but below the horizon}
+     */
+    public int getBelowHorizonSectionCount() {
+        return this.belowHorizonSectionCount;
+    }
+
+    private void resetHiddenSectionCounts() {
+        this.occludedSectionCount = 0;
+        this.belowHorizonSectionCount = 0;
+    }
+
+    private void countHiddenSection(int reason) {
+        if (reason == OCCLUDED) {
+            this.occludedSectionCount++;
+        } else if (reason == BELOW_HORIZON) {
+            this.belowHorizonSectionCount++;
+        }
+    }
+
+    /**
+     * {@return {@link #OCCLUDED} or {@link #BELOW_HORIZON} if the section is known to be hidden, or zero otherwise}
+     * This is safe to call from any thread.
+     */
+    private int getHiddenReason(SectionGraph graph, int id) {
+        if (this.useOccluders && this.isOccluded(graph, id)) {
+            return OCCLUDED;
+        }
+
+        if (this.useHorizon && this.isBelowHorizon(graph, id)) {
+            return BELOW_HORIZON;
+        }
+
+        return 0;
+    }
+
+    private boolean isBelowHorizon(SectionGraph graph, int id) {
+        return this.horizon.isSectionHidden(graph.getChunkX(id), graph.getChunkY(id), graph.getChunkZ(id));
+    }
+
+    private boolean isOccluded(SectionGraph graph, int id) {
+        float x = (float) (((graph.getChunkX(id) << 4) + 8) - this.occluderCameraX);
+        float y = (float) (((graph.getChunkY(id) << 4) + 8) - this.occluderCameraY);
+        float z = (float) (((graph.getChunkZ(id) << 4) + 8) - this.occluderCameraZ);
+
+        return this.rasterizer.isBoxOccluded(x - CHUNK_SECTION_SIZE, y - CHUNK_SECTION_SIZE, z - CHUNK_SECTION_SIZE,
+                x + CHUNK_SECTION_SIZE, y + CHUNK_SECTION_SIZE, z + CHUNK_SECTION_SIZE);
+    }
+
+    private void findReachable(Viewport viewport, float searchDistance, boolean useOcclusionCulling, int frame) {
+        var sections = this.reachableSections;
+        sections.clear();
+
+        // As most of the reachable sections will be outside the frustum, this only marks them as reached. Only those
+        // which findVisibleIncremental finds to be visible are marked as such.
+        this.search((section, visible, geometryVisible) -> {
+            if (visible) {
+                sections.add(section.getId());
+            }
+        }, viewport, searchDistance + REACHABLE_DISTANCE_MARGIN, useOcclusionCulling, false, frame);
+
+        int count = sections.size();
+
+        if (this.reachableInFrustum.length < count) {
+            int capacity = Math.max(count, this.reachableInFrustum.length * 2);
+
+            this.reachableCenterX = new float[capacity];
+            this.reachableCenterY = new float[capacity];
+            this.reachableCenterZ = new float[capacity];
+            this.reachableInFrustum = new boolean[capacity];
+        }
+
+        var graph = this.graph;
+        var origin = viewport.getChunkCoord();
+
+        for (int i = 0; i < count; i++) {
+            int id = sections.getInt(i);
+
+            this.reachableCenterX[i] = ((graph.getChunkX(id) - origin.getX()) << 4) + 8;
+            this.reachableCenterY[i] = ((graph.getChunkY(id) - origin.getY()) << 4) + 8;
+            this.reachableCenterZ[i] = ((graph.getChunkZ(id) - origin.getZ()) << 4) + 8;
+        }
+    }
+
+    private void search(Visitor visitor,
+                        Viewport viewport,
+                        float searchDistance,
+                        boolean useOcclusionCulling,
+                        boolean useFrustum,
+                        int frame)
     {
         final var queues = this.queue;
         queues.reset();
 
         this.isCameraInUnloadedSection = false;
-        this.init(visitor, queues.write(), viewport, searchDistance, useOcclusionCulling, frame);
+        this.canSplitLayers = false;
+        this.visitedSectionCount = 0;
+        this.markReached = !useFrustum;
+        this.init(visitor, queues.write(), viewport, searchDistance, useOcclusionCulling, useFrustum, frame);
         if(this.isCameraInUnloadedSection) {
             useOcclusionCulling = false;
         }
 
+        boolean parallel = this.parallelSearch && this.canSplitLayers;
+
         while (queues.flip()) {
-            processQueue(visitor, viewport, searchDistance, useOcclusionCulling, frame, queues.read(), queues.write());
+            if (parallel && queues.read().size() >= PARALLEL_LAYER_THRESHOLD) {
+                this.processLayerInParallel(visitor, viewport, searchDistance, useOcclusionCulling, useFrustum, frame, queues.read(), queues.write());
+            } else {
+                this.processQueue(visitor, viewport, searchDistance, useOcclusionCulling, useFrustum, frame, queues.read(), queues.write());
+            }
         }
     }
 
-    private static void processQueue(Visitor visitor,
-                                     Viewport viewport,
-                                     float searchDistance,
-                                     boolean useOcclusionCulling,
-                                     int frame,
-                                     ReadQueue<RenderSection> readQueue,
-                                     WriteQueue<RenderSection> writeQueue)
+    /**
+     * Sets whether large layers of the graph search should be split across the threads of the common fork-join pool.
+     *
+     * <p>Only the per-section work (the render distance and frustum tests, and finding the outgoing connections) is
+     * done in parallel. Neighbors are still visited by the calling thread in the same order as a single-threaded
+     * search, so the visitor sees exactly the same sequence of sections either way. This relies on the search only
+     * ever moving outwards from the camera's section, which means every section in a layer is the same number of steps
+     * away from it, and all of its incoming directions are known once the previous layer has been processed.</p>
+     */
+    public void setParallelSearch(boolean parallelSearch) {
+        this.parallelSearch = parallelSearch;
+    }
+
+    /**
+     * Sets whether the graph search should track which part of each face it entered a section through, using the
+     * {@link SubFaceVisibility sub-face visibility} of each section. Sections which were built without sub-face data
+     * behave as though every part of a face can see whatever the whole face can.
+     */
+    public void setSubFaceSearch(boolean subFaceSearch) {
+        this.subFaceSearch = subFaceSearch;
+    }
+
+    /**
+     * {@return the number of sections the last graph search visited, whether or not they were visible}
+     */
+    public int getVisitedSectionCount() {
+        return this.visitedSectionCount;
+    }
+
+    private void processQueue(Visitor visitor,
+                              Viewport viewport,
+                              float searchDistance,
+                              boolean useOcclusionCulling,
+                              boolean useFrustum,
+                              int frame,
+                              IntReadQueue readQueue,
+                              IntWriteQueue writeQueue)
     {
-        RenderSection section;
+        var graph = this.graph;
+        int id;
+
+        while ((id = readQueue.dequeue()) != -1) {
+            int connections = this.getOutgoingConnections(graph, id, viewport, searchDistance, useOcclusionCulling, useFrustum);
 
-        while ((section = readQueue.dequeue()) != null) {
-            boolean visible = isSectionVisible(section, viewport, searchDistance);
-            visitor.visit(section, visible);
+            this.countHiddenSection(connections);
 
-            if (!visible) {
-                continue;
+            boolean visible = connections >= 0;
+            visitor.visit(graph.getSection(id), visible, visible && (!useFrustum || this.isGeometryVisible(graph, id, viewport, searchDistance)));
+
+            if (connections >= 0) {
+                this.visitNeighbors(writeQueue, id, connections, frame);
             }
+        }
+    }
 
-            int connections;
-
-            {
-                if (useOcclusionCulling) {
-                    // When using occlusion culling, we can only traverse into neighbors for which there is a path of
-                    // visibility through this chunk. This is determined by taking all the incoming paths to this chunk and
-                    // creating a union of the outgoing paths from those.
-                    connections = VisibilityEncoding.getConnections(section.getVisibilityData(), section.getIncomingDirections());
-                } else {
-                    // Not using any occlusion culling, so traversing in any direction is legal.
-                    connections = GraphDirectionSet.ALL;
-                }
+    private void processLayerInParallel(Visitor visitor,
+                                        Viewport viewport,
+                                        float searchDistance,
+                                        boolean useOcclusionCulling,
+                                        boolean useFrustum,
+                                        int frame,
+                                        IntReadQueue readQueue,
+                                        IntWriteQueue writeQueue)
+    {
+        int count = readQueue.size();
+
+        if (this.layerConnections.length < count) {
+            this.layerConnections = new int[Math.max(count, this.layerConnections.length * 2)];
+        }
+
+        var connections = this.layerConnections;
+
+        ForkJoinPool.commonPool().invoke(new LayerTask(readQueue, connections, 0, count,
+                viewport, searchDistance, useOcclusionCulling, useFrustum));
+
+        for (int i = 0; i < count; i++) {
+            int id = readQueue.dequeue();
+
+            this.countHiddenSection(connections[i]);
+
+            boolean visible = connections[i] >= 0;
+            visitor.visit(this.graph.getSection(id), visible, visible && (!useFrustum || this.isGeometryVisible(this.graph, id, viewport, searchDistance)));
+
+            if (connections[i] >= 0) {
+                this.visitNeighbors(writeQueue, id, connections[i], frame);
+            }
+        }
+    }
+
+    /**
+     * {@return the directions the search should continue in from the given section, {@link #NOT_VISIBLE} if the
+     * section is not visible, or {@link #OCCLUDED} or {@link #BELOW_HORIZON} if it is known to be hidden} This only
+     * reads the state of the section, and is safe to call from any thread.
+     */
+    private int getOutgoingConnections(SectionGraph graph,
+                                       int id,
+                                       Viewport viewport,
+                                       float searchDistance,
+                                       boolean useOcclusionCulling,
+                                       boolean useFrustum)
+    {
+        boolean visible = useFrustum ? this.isSectionVisible(graph, id, viewport, searchDistance) :
+                isWithinRenderDistance(viewport.getTransform(), graph, id, searchDistance);
+
+        if (!visible) {
+            return NOT_VISIBLE;
+        }
+
+        // Any line of sight into a section which is hidden entirely would have to pass through whatever hides it, so
+        // the search does not need to continue past it either
+        if (useFrustum) {
+            int hidden = this.getHiddenReason(graph, id);
 
-                // We can only traverse *outwards* from the center of the graph search, so mask off any invalid
-                // directions.
-                connections &= getOutwardDirections(viewport.getChunkCoord(), section);
+            if (hidden != 0) {
+                return hidden;
             }
+        }
+
+        if (this.subFaceSearch) {
+            // Like below, but with each direction split into the four parts of the face
+            int connections = useOcclusionCulling ? graph.getSubFaceConnections(id, graph.getIncomingSubFaces(id)) : SubFaceVisibility.ALL;
+            connections &= SubFaceVisibility.fromFaces(getOutwardDirections(viewport.getChunkCoord(), graph, id));
+
+            return connections;
+        }
+
+        int connections;
 
-            visitNeighbors(writeQueue, section, connections, frame);
+        if (useOcclusionCulling) {
+            // When using occlusion culling, we can only traverse into neighbors for which there is a path of
+            // visibility through this chunk. This is determined by taking all the incoming paths to this chunk and
+            // creating a union of the outgoing paths from those.
+            connections = VisibilityEncoding.getConnections(graph.getVisibilityData(id), graph.getIncomingDirections(id));
+        } else {
+            // Not using any occlusion culling, so traversing in any direction is legal.
+            connections = GraphDirectionSet.ALL;
         }
+
+        // We can only traverse *outwards* from the center of the graph search, so mask off any invalid
+        // directions.
+        connections &= getOutwardDirections(viewport.getChunkCoord(), graph, id);
+
+        return connections;
     }
 
-    private static boolean isSectionVisible(RenderSection section, Viewport viewport, float maxDistance) {
-        return isWithinRenderDistance(viewport.getTransform(), section, maxDistance) && isWithinFrustum(viewport, section);
+    private boolean isSectionVisible(SectionGraph graph, int id, Viewport viewport, float maxDistance) {
+        return isWithinRenderDistance(viewport.getTransform(), graph, id, maxDistance) && this.isWithinFrustum(viewport, graph, id);
     }
 
-    private static void visitNeighbors(final WriteQueue<RenderSection> queue, RenderSection section, int outgoing, int frame) {
+    private void visitNeighbors(final IntWriteQueue queue, int id, int outgoing, int frame) {
+        if (this.subFaceSearch) {
+            this.visitNeighborsThroughSubFaces(queue, id, outgoing, frame);
+            return;
+        }
+
+        var graph = this.graph;
+
         // Only traverse into neighbors which are actually present.
-        // This avoids a null-check on each invocation to enqueue, and since the compiler will see that a null
-        // is never encountered (after profiling), it will optimize it away.
-        outgoing &= section.getAdjacentMask();
+        // This avoids a check for a missing neighbor on each invocation to enqueue.
+        outgoing &= graph.getAdjacentMask(id);
 
         // Check if there are any valid connections left, and if not, early-exit.
         if (outgoing == GraphDirectionSet.NONE) {
@@ -108,73 +605,158 @@ public class OcclusionCuller {
         queue.ensureCapacity(6);
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.DOWN)) {
-            visitNode(queue, section.adjacentDown, GraphDirectionSet.of(GraphDirection.UP), frame);
+            this.visitNode(queue, graph.getAdjacent(id, GraphDirection.DOWN), GraphDirectionSet.of(GraphDirection.UP), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.UP)) {
-            visitNode(queue, section.adjacentUp, GraphDirectionSet.of(GraphDirection.DOWN), frame);
+            this.visitNode(queue, graph.getAdjacent(id, GraphDirection.UP), GraphDirectionSet.of(GraphDirection.DOWN), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.NORTH)) {
-            visitNode(queue, section.adjacentNorth, GraphDirectionSet.of(GraphDirection.SOUTH), frame);
+            this.visitNode(queue, graph.getAdjacent(id, GraphDirection.NORTH), GraphDirectionSet.of(GraphDirection.SOUTH), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.SOUTH)) {
-            visitNode(queue, section.adjacentSouth, GraphDirectionSet.of(GraphDirection.NORTH), frame);
+            this.visitNode(queue, graph.getAdjacent(id, GraphDirection.SOUTH), GraphDirectionSet.of(GraphDirection.NORTH), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.WEST)) {
-            visitNode(queue, section.adjacentWest, GraphDirectionSet.of(GraphDirection.EAST), frame);
+            this.visitNode(queue, graph.getAdjacent(id, GraphDirection.WEST), GraphDirectionSet.of(GraphDirection.EAST), frame);
         }
 
         if (GraphDirectionSet.contains(outgoing, GraphDirection.EAST)) {
-            visitNode(queue, section.adjacentEast, GraphDirectionSet.of(GraphDirection.WEST), frame);
+            this.visitNode(queue, graph.getAdjacent(id, GraphDirection.EAST), GraphDirectionSet.of(GraphDirection.WEST), frame);
+        }
+    }
+
+    private void visitNeighborsThroughSubFaces(final IntWriteQueue queue, int id, int outgoing, int frame) {
+        var graph = this.graph;
+
+        int directions = SubFaceVisibility.toFaces(outgoing) & graph.getAdjacentMask(id);
+
+        if (directions == GraphDirectionSet.NONE) {
+            return;
+        }
+
+        queue.ensureCapacity(6);
+
+        for (int direction = 0; direction < GraphDirection.COUNT; direction++) {
+            if (GraphDirectionSet.contains(directions, direction)) {
+                this.visitNode(queue, graph.getAdjacent(id, direction), SubFaceVisibility.toNeighbor(outgoing, direction), frame);
+            }
         }
     }
 
-    private static void visitNode(final WriteQueue<RenderSection> queue, @NotNull RenderSection render, int incoming, int frame) {
-        if (render.getLastVisibleFrame() != frame) {
+    // The incoming value is a set of sub-faces when searching through sub-faces, and a set of directions otherwise
+    private void visitNode(final IntWriteQueue queue, int id, int incoming, int frame) {
+        var graph = this.graph;
+
+        if (this.getSearchFrame(graph, id) != frame) {
             // This is the first time we are visiting this section during the given frame, so we must
             // reset the state.
-            render.setLastVisibleFrame(frame);
-            render.setIncomingDirections(GraphDirectionSet.NONE);
+            this.setSearchFrame(graph, id, frame);
+            graph.setIncomingDirections(id, GraphDirectionSet.NONE);
+            graph.setIncomingSubFaces(id, 0);
 
-            queue.enqueue(render);
+            queue.enqueue(id);
+            this.visitedSectionCount++;
         }
 
-        render.addIncomingDirections(incoming);
+        if (this.subFaceSearch) {
+            graph.addIncomingSubFaces(id, incoming);
+        } else {
+            graph.addIncomingDirections(id, incoming);
+        }
+    }
+
+    private int getSearchFrame(SectionGraph graph, int id) {
+        return this.markReached ? graph.getLastReachedFrame(id) : graph.getLastVisibleFrame(id);
+    }
+
+    private void setSearchFrame(SectionGraph graph, int id, int frame) {
+        if (this.markReached) {
+            graph.setLastReachedFrame(id, frame);
+        } else {
+            graph.setLastVisibleFrame(id, frame);
+        }
     }
 
-    private static int getOutwardDirections(SectionPos origin, RenderSection section) {
+    private static int getOutwardDirections(SectionPos origin, SectionGraph graph, int id) {
         int planes = 0;
 
-        planes |= section.getChunkX() <= origin.getX() ? 1 << GraphDirection.WEST  : 0;
-        planes |= section.getChunkX() >= origin.getX() ? 1 << GraphDirection.EAST  : 0;
+        int x = graph.getChunkX(id);
+        int y = graph.getChunkY(id);
+        int z = graph.getChunkZ(id);
+
+        planes |= x <= origin.getX() ? 1 << GraphDirection.WEST  : 0;
+        planes |= x >= origin.getX() ? 1 << GraphDirection.EAST  : 0;
 
-        planes |= section.getChunkY() <= origin.getY() ? 1 << GraphDirection.DOWN  : 0;
-        planes |= section.getChunkY() >= origin.getY() ? 1 << GraphDirection.UP    : 0;
+        planes |= y <= origin.getY() ? 1 << GraphDirection.DOWN  : 0;
+        planes |= y >= origin.getY() ? 1 << GraphDirection.UP    : 0;
 
-        planes |= section.getChunkZ() <= origin.getZ() ? 1 << GraphDirection.NORTH : 0;
-        planes |= section.getChunkZ() >= origin.getZ() ? 1 << GraphDirection.SOUTH : 0;
+        planes |= z <= origin.getZ() ? 1 << GraphDirection.NORTH : 0;
+        planes |= z >= origin.getZ() ? 1 << GraphDirection.SOUTH : 0;
 
         return planes;
     }
 
-    private static boolean isWithinRenderDistance(CameraTransform camera, RenderSection section, float maxDistance) {
-        // origin point of the chunk's bounding box (in view space)
-        int ox = section.getOriginX() - camera.intX;
-        int oy = section.getOriginY() - camera.intY;
-        int oz = section.getOriginZ() - camera.intZ;
+    private static boolean isWithinRenderDistance(CameraTransform camera, SectionGraph graph, int id, float maxDistance) {
+        int x = graph.getChunkX(id) << 4;
+        int y = graph.getChunkY(id) << 4;
+        int z = graph.getChunkZ(id) << 4;
 
+        return isWithinRenderDistance(camera, x, y, z, x + 16, y + 16, z + 16, maxDistance);
+    }
+
+    private static boolean isWithinRenderDistance(CameraTransform camera, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, float maxDistance) {
         // coordinates of the point to compare (in view space)
         // this is the closest point within the bounding box to the center (0, 0, 0)
-        float dx = nearestToZero(ox, ox + 16) - camera.fracX;
-        float dy = nearestToZero(oy, oy + 16) - camera.fracY;
-        float dz = nearestToZero(oz, oz + 16) - camera.fracZ;
+        float dx = nearestToZero(minX - camera.intX, maxX - camera.intX) - camera.fracX;
+        float dy = nearestToZero(minY - camera.intY, maxY - camera.intY) - camera.fracY;
+        float dz = nearestToZero(minZ - camera.intZ, maxZ - camera.intZ) - camera.fracZ;
 
         return DistanceFilterHolder.INSTANCE.isWithinDistance(dx, dy, dz, maxDistance);
     }
 
+    // The epsilon used for frustum checks against the bounds of a section's geometry, for the same reason as below
+    private static final float GEOMETRY_BOUNDS_EPSILON = 0.125f;
+
+    /**
+     * {@return false if the geometry of a section which has passed the visibility tests still lies entirely outside
+     * the frustum or the render distance} The graph search must continue through such a section regardless, since
+     * the rest of it may be empty, so this only decides whether the section is drawn. Likewise, the section is still
+     * counted as visible for the purpose of culling entities within it.
+     */
+    private boolean isGeometryVisible(SectionGraph graph, int id, Viewport viewport, float maxDistance) {
+        int bounds = graph.getGeometryBounds(id);
+
+        if (bounds == SectionBounds.FULL) {
+            return true;
+        }
+
+        int x = graph.getChunkX(id) << 4;
+        int y = graph.getChunkY(id) << 4;
+        int z = graph.getChunkZ(id) << 4;
+
+        int minX = x + SectionBounds.getMinX(bounds), maxX = x + SectionBounds.getMaxX(bounds);
+        int minY = y + SectionBounds.getMinY(bounds), maxY = y + SectionBounds.getMaxY(bounds);
+        int minZ = z + SectionBounds.getMinZ(bounds), maxZ = z + SectionBounds.getMaxZ(bounds);
+
+        // The render distance ignores how far block models can extend outside of a section, so the same is done here
+        if (!isWithinRenderDistance(viewport.getTransform(),
+                Mth.clamp(minX, x, x + 16), Mth.clamp(minY, y, y + 16), Mth.clamp(minZ, z, z + 16),
+                Mth.clamp(maxX, x, x + 16), Mth.clamp(maxY, y, y + 16), Mth.clamp(maxZ, z, z + 16), maxDistance)) {
+            return false;
+        }
+
+        // Everything within a region which is entirely inside the frustum is too
+        if (this.getRegionIntersection(viewport, graph.getRegion(id)) == Frustum.INSIDE) {
+            return true;
+        }
+
+        return viewport.isBlockBoxVisible(minX, minY, minZ, maxX, maxY, maxZ, GEOMETRY_BOUNDS_EPSILON);
+    }
+
     @SuppressWarnings("ManualMinMaxCalculation") // we know what we are doing.
     private static int nearestToZero(int min, int max) {
         // this compiles to slightly better code than Math.min(Math.max(0, min), max)
@@ -193,26 +775,69 @@ public class OcclusionCuller {
         return viewport.isBoxVisible(section.getCenterX(), section.getCenterY(), section.getCenterZ(), CHUNK_SECTION_SIZE);
     }
 
+    // The bounding box of a region, which must contain the bounding box of every section within it.
+    private static final float REGION_SIZE_X = ((RenderRegion.REGION_WIDTH - 1) * 8.0f) + CHUNK_SECTION_SIZE;
+    private static final float REGION_SIZE_Y = ((RenderRegion.REGION_HEIGHT - 1) * 8.0f) + CHUNK_SECTION_SIZE;
+    private static final float REGION_SIZE_Z = ((RenderRegion.REGION_LENGTH - 1) * 8.0f) + CHUNK_SECTION_SIZE;
+
+    private boolean isWithinFrustum(Viewport viewport, SectionGraph graph, int id) {
+        // Most regions are either entirely inside or entirely outside the frustum, in which case the same is true of
+        // every section within them, and only the sections of regions crossing the frustum's planes need testing.
+        int regionIntersection = this.getRegionIntersection(viewport, graph.getRegion(id));
+
+        if (regionIntersection != Frustum.INTERSECT) {
+            return regionIntersection == Frustum.INSIDE;
+        }
+
+        return viewport.isBoxVisible((graph.getChunkX(id) << 4) + 8, (graph.getChunkY(id) << 4) + 8, (graph.getChunkZ(id) << 4) + 8, CHUNK_SECTION_SIZE);
+    }
+
+    private int getRegionIntersection(Viewport viewport, RenderRegion region) {
+        int epoch = this.frustumEpoch;
+        int cached = region.getCachedFrustumTest();
+
+        if ((cached >>> 2) == epoch) {
+            return cached & 0b11;
+        }
+
+        int result = viewport.getBoxIntersection(region.getCenterX(), region.getCenterY(), region.getCenterZ(),
+                REGION_SIZE_X, REGION_SIZE_Y, REGION_SIZE_Z);
+
+        // When searching in parallel, several threads may test the same region at once, but they will all store the
+        // same result.
+        region.setCachedFrustumTest((epoch << 2) | result);
+
+        return result;
+    }
+
+    private void nextFrustumEpoch() {
+        // Skip the epoch which matches the initial (unset) value of the cache
+        do {
+            this.frustumEpoch = (this.frustumEpoch + 1) & 0x3FFFFFFF;
+        } while (this.frustumEpoch == (-1 >>> 2));
+    }
+
     private void init(Visitor visitor,
-                      WriteQueue<RenderSection> queue,
+                      IntWriteQueue queue,
                       Viewport viewport,
                       float searchDistance,
                       boolean useOcclusionCulling,
+                      boolean useFrustum,
                       int frame)
     {
         var origin = viewport.getChunkCoord();
 
         if (origin.getY() < this.world.getMinSectionY()) {
             // below the world
-            this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
+            this.initOutsideWorldHeight(queue, viewport, searchDistance, useFrustum, frame,
                     this.world.getMinSectionY(), GraphDirectionSet.of(GraphDirection.DOWN));
         } else if (origin.getY() >= this.world.getMaxSectionY()) {
             // above the world
-            this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
+            this.initOutsideWorldHeight(queue, viewport, searchDistance, useFrustum, frame,
                     this.world.getMaxSectionY() - 1, GraphDirectionSet.of(GraphDirection.UP));
         } else if(this.getRenderSection(origin.getX(), origin.getY(), origin.getZ()) == null) {
             // inside the world height-wise, but in an unloaded section
-            this.initOutsideWorldHeight(queue, viewport, searchDistance, frame,
+            this.initOutsideWorldHeight(queue, viewport, searchDistance, useFrustum, frame,
                     origin.getY(), GraphDirectionSet.of(GraphDirection.UP) | GraphDirectionSet.of(GraphDirection.DOWN));
             this.isCameraInUnloadedSection = true;
         } else {
@@ -220,37 +845,46 @@ public class OcclusionCuller {
         }
     }
 
-    private void initWithinWorld(Visitor visitor, WriteQueue<RenderSection> queue, Viewport viewport, boolean useOcclusionCulling, int frame) {
+    private void initWithinWorld(Visitor visitor, IntWriteQueue queue, Viewport viewport, boolean useOcclusionCulling, int frame) {
         var origin = viewport.getChunkCoord();
         var section = this.getRenderSection(origin.getX(), origin.getY(), origin.getZ());
 
         Objects.requireNonNull(section);
 
-        section.setLastVisibleFrame(frame);
-        section.setIncomingDirections(GraphDirectionSet.NONE);
+        // Starting from a single section means that no section can be reached from another in the same layer, which
+        // is what allows layers to be processed in parallel. This does not hold when starting from outside the world.
+        this.canSplitLayers = true;
+
+        int id = section.getId();
 
-        visitor.visit(section, true);
+        this.setSearchFrame(this.graph, id, frame);
+        this.graph.setIncomingDirections(id, GraphDirectionSet.NONE);
+
+        visitor.visit(section, true, true);
 
         int outgoing;
 
-        if (useOcclusionCulling) {
+        if (this.subFaceSearch) {
+            outgoing = useOcclusionCulling ? this.graph.getSubFaceConnections(id, SubFaceVisibility.ALL) : SubFaceVisibility.ALL;
+        } else if (useOcclusionCulling) {
             // Since the camera is located inside this chunk, there are no "incoming" directions. So we need to instead
             // find any possible paths out of this chunk and enqueue those neighbors.
-            outgoing = VisibilityEncoding.getConnections(section.getVisibilityData());
+            outgoing = VisibilityEncoding.getConnections(this.graph.getVisibilityData(id));
         } else {
             // Occlusion culling is disabled, so we can traverse into any neighbor.
             outgoing = GraphDirectionSet.ALL;
         }
 
-        visitNeighbors(queue, section, outgoing, frame);
+        this.visitNeighbors(queue, id, outgoing, frame);
     }
 
     // Enqueues sections that are inside the viewport using diamond spiral iteration to avoid sorting and ensure a
     // consistent order. Innermost layers are enqueued first. Within each layer, iteration starts at the northernmost
     // section and proceeds counterclockwise (N->W->S->E).
-    private void initOutsideWorldHeight(WriteQueue<RenderSection> queue,
+    private void initOutsideWorldHeight(IntWriteQueue queue,
                                         Viewport viewport,
                                         float searchDistance,
+                                        boolean useFrustum,
                                         int frame,
                                         int height,
                                         int direction)
@@ -259,18 +893,18 @@ public class OcclusionCuller {
         var radius = Mth.floor(searchDistance / 16.0f);
 
         // Layer 0
-        this.tryVisitNode(queue, origin.getX(), height, origin.getZ(), direction, frame, viewport);
+        this.tryVisitNode(queue, origin.getX(), height, origin.getZ(), direction, frame, viewport, useFrustum);
 
         // Complete layers, excluding layer 0
         for (int layer = 1; layer <= radius; layer++) {
             for (int z = -layer; z < layer; z++) {
                 int x = Math.abs(z) - layer;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport, useFrustum);
             }
 
             for (int z = layer; z > -layer; z--) {
                 int x = layer - Math.abs(z);
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport, useFrustum);
             }
         }
 
@@ -280,42 +914,88 @@ public class OcclusionCuller {
 
             for (int z = -radius; z <= -l; z++) {
                 int x = -z - layer;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport, useFrustum);
             }
 
             for (int z = l; z <= radius; z++) {
                 int x = z - layer;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport, useFrustum);
             }
 
             for (int z = radius; z >= l; z--) {
                 int x = layer - z;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport, useFrustum);
             }
 
             for (int z = -l; z >= -radius; z--) {
                 int x = layer + z;
-                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport);
+                this.tryVisitNode(queue, origin.getX() + x, height, origin.getZ() + z, direction, frame, viewport, useFrustum);
             }
         }
     }
 
-    private void tryVisitNode(WriteQueue<RenderSection> queue, int x, int y, int z, int direction, int frame, Viewport viewport) {
+    private void tryVisitNode(IntWriteQueue queue, int x, int y, int z, int direction, int frame, Viewport viewport, boolean useFrustum) {
         RenderSection section = this.getRenderSection(x, y, z);
 
-        if (section == null || !isWithinFrustum(viewport, section)) {
+        if (section == null || (useFrustum && !isWithinFrustum(viewport, section))) {
             return;
         }
 
-        visitNode(queue, section, direction, frame);
+        this.visitNode(queue, section.getId(), this.subFaceSearch ? SubFaceVisibility.fromFaces(direction) : direction, frame);
     }
 
     private RenderSection getRenderSection(int x, int y, int z) {
         return this.sections.get(SectionPos.asLong(x, y, z));
     }
 
+    private class LayerTask extends RecursiveAction {
+        private final IntReadQueue layer;
+        private final int[] connections;
+        private final int from, to;
+
+        private final Viewport viewport;
+        private final float searchDistance;
+        private final boolean useOcclusionCulling, useFrustum;
+
+        private LayerTask(IntReadQueue layer, int[] connections, int from, int to,
+                          Viewport viewport, float searchDistance, boolean useOcclusionCulling, boolean useFrustum) {
+            this.layer = layer;
+            this.connections = connections;
+            this.from = from;
+            this.to = to;
+            this.viewport = viewport;
+            this.searchDistance = searchDistance;
+            this.useOcclusionCulling = useOcclusionCulling;
+            this.useFrustum = useFrustum;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > PARALLEL_SPLIT_SIZE) {
+                int mid = (this.from + this.to) >>> 1;
+
+                invokeAll(this.split(this.from, mid), this.split(mid, this.to));
+                return;
+            }
+
+            for (int i = this.from; i < this.to; i++) {
+                this.connections[i] = OcclusionCuller.this.getOutgoingConnections(OcclusionCuller.this.graph, this.layer.peek(i), this.viewport, this.searchDistance,
+                        this.useOcclusionCulling, this.useFrustum);
+            }
+        }
+
+        private LayerTask split(int from, int to) {
+            return new LayerTask(this.layer, this.connections, from, to,
+                    this.viewport, this.searchDistance, this.useOcclusionCulling, this.useFrustum);
+        }
+    }
+
     public interface Visitor {
-        void visit(RenderSection section, boolean visible);
+        /**
+         * @param visible         Whether the section itself is visible, which decides how urgently it is rebuilt
+         * @param geometryVisible Whether the section's current geometry is visible, which decides whether it is drawn
+         */
+        void visit(RenderSection section, boolean visible, boolean geometryVisible);
     }
 
     private static class DistanceFilterHolder {
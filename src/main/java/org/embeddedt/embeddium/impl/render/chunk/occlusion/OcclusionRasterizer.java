@@ -0,0 +1,322 @@
+package org.embeddedt.embeddium.impl.render.chunk.occlusion;
+
+import org.joml.Matrix4fc;
+
+import java.util.Arrays;
+
+/**
+ * A small software depth buffer, used to find sections which are hidden behind solid terrain even though the graph
+ * search can see a path to them (for example, the far side of a mountain).
+ *
+ * <p>Occluders are drawn as boxes, and each pixel covered by an occluder stores the distance to the <i>farthest</i>
+ * point of that box. A box being tested is only considered hidden if every pixel it could touch holds a distance
+ * closer than the <i>nearest</i> point of the box. Occluders only write to pixels which they cover entirely, and
+ * boxes being tested read every pixel they overlap even partially, so the result is always conservative: a box
+ * is never reported as hidden if any part of it might be visible.</p>
+ *
+ * <p>Depth is measured as the clip-space W coordinate, which is the distance along the camera's view axis. All
+ * positions are given relative to the camera.</p>
+ *
+ * <p>Once {@link #finishOccluders()} has been called, {@link #isBoxOccluded(float, float, float, float, float, float)}
+ * only reads from the buffer, and is safe to call from any number of threads at once.</p>
+ */
+class OcclusionRasterizer {
+    static final int WIDTH = 256;
+    static final int HEIGHT = 128;
+
+    private static final int TILE_SHIFT = 3;
+    private static final int TILES_X = WIDTH >> TILE_SHIFT;
+    private static final int TILES_Y = HEIGHT >> TILE_SHIFT;
+
+    // Points closer than this to the camera plane cannot be projected reliably. Occluders with such a point are
+    // skipped, and boxes with such a point are assumed to be visible.
+    private static final float NEAR_PLANE = 0.1f;
+
+    private final float[] depth = new float[WIDTH * HEIGHT];
+
+    // The farthest depth within each tile of pixels, so that boxes covering many pixels can usually be tested one
+    // tile at a time
+    private final float[] tileDepth = new float[TILES_X * TILES_Y];
+
+    private float m00, m01, m03, m10, m11, m13, m20, m21, m23, m30, m31, m33;
+
+    // Scratch space for the occluder being drawn. Not used when testing boxes, so that testing is thread-safe.
+    private final float[] cornerX = new float[8], cornerY = new float[8];
+    private final int[] order = new int[8];
+    private final float[] hullX = new float[9], hullY = new float[9];
+
+    private int occluderCount;
+
+    /**
+     * Clears the buffer and sets up the projection for a new frame.
+     *
+     * @param viewProjection The combined projection and view rotation matrix, which maps positions relative to the
+     *                       camera into clip space
+     */
+    public void beginOccluders(Matrix4fc viewProjection) {
+        this.m00 = viewProjection.m00();
+        this.m01 = viewProjection.m01();
+        this.m03 = viewProjection.m03();
+        this.m10 = viewProjection.m10();
+        this.m11 = viewProjection.m11();
+        this.m13 = viewProjection.m13();
+        this.m20 = viewProjection.m20();
+        this.m21 = viewProjection.m21();
+        this.m23 = viewProjection.m23();
+        this.m30 = viewProjection.m30();
+        this.m31 = viewProjection.m31();
+        this.m33 = viewProjection.m33();
+
+        Arrays.fill(this.depth, Float.POSITIVE_INFINITY);
+
+        this.occluderCount = 0;
+    }
+
+    /**
+     * Draws a box which nothing can be seen through.
+     */
+    public void drawOccluder(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float[] cx = this.cornerX, cy = this.cornerY;
+        float farthest = 0.0f;
+
+        for (int i = 0; i < 8; i++) {
+            float x = (i & 1) == 0 ? minX : maxX;
+            float y = (i & 2) == 0 ? minY : maxY;
+            float z = (i & 4) == 0 ? minZ : maxZ;
+
+            float w = (this.m03 * x) + (this.m13 * y) + (this.m23 * z) + this.m33;
+
+            if (w < NEAR_PLANE) {
+                return;
+            }
+
+            cx[i] = toScreenX(((this.m00 * x) + (this.m10 * y) + (this.m20 * z) + this.m30) / w);
+            cy[i] = toScreenY(((this.m01 * x) + (this.m11 * y) + (this.m21 * z) + this.m31) / w);
+
+            farthest = Math.max(farthest, w);
+        }
+
+        // The projection of a box is the convex hull of its projected corners
+        int hullSize = this.computeConvexHull();
+
+        if (hullSize < 3) {
+            return;
+        }
+
+        this.fillConvexPolygon(hullSize, farthest);
+        this.occluderCount++;
+    }
+
+    /**
+     * Must be called after all occluders have been drawn, and before any boxes are tested.
+     */
+    public void finishOccluders() {
+        for (int ty = 0; ty < TILES_Y; ty++) {
+            for (int tx = 0; tx < TILES_X; tx++) {
+                float max = 0.0f;
+
+                for (int y = ty << TILE_SHIFT; y < (ty + 1) << TILE_SHIFT; y++) {
+                    int row = y * WIDTH;
+
+                    for (int x = tx << TILE_SHIFT; x < (tx + 1) << TILE_SHIFT; x++) {
+                        max = Math.max(max, this.depth[row + x]);
+                    }
+                }
+
+                this.tileDepth[(ty * TILES_X) + tx] = max;
+            }
+        }
+    }
+
+    /**
+     * {@return true if the given box is entirely hidden behind the occluders}
+     */
+    public boolean isBoxOccluded(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        float nearest = Float.POSITIVE_INFINITY;
+
+        float minScreenX = Float.POSITIVE_INFINITY, minScreenY = Float.POSITIVE_INFINITY;
+        float maxScreenX = Float.NEGATIVE_INFINITY, maxScreenY = Float.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < 8; i++) {
+            float x = (i & 1) == 0 ? minX : maxX;
+            float y = (i & 2) == 0 ? minY : maxY;
+            float z = (i & 4) == 0 ? minZ : maxZ;
+
+            float w = (this.m03 * x) + (this.m13 * y) + (this.m23 * z) + this.m33;
+
+            if (w < NEAR_PLANE) {
+                return false;
+            }
+
+            float sx = toScreenX(((this.m00 * x) + (this.m10 * y) + (this.m20 * z) + this.m30) / w);
+            float sy = toScreenY(((this.m01 * x) + (this.m11 * y) + (this.m21 * z) + this.m31) / w);
+
+            minScreenX = Math.min(minScreenX, sx);
+            minScreenY = Math.min(minScreenY, sy);
+            maxScreenX = Math.max(maxScreenX, sx);
+            maxScreenY = Math.max(maxScreenY, sy);
+
+            nearest = Math.min(nearest, w);
+        }
+
+        // Every pixel the box's projection touches, even partially
+        int x0 = Math.max(0, (int) Math.floor(minScreenX));
+        int y0 = Math.max(0, (int) Math.floor(minScreenY));
+        int x1 = Math.min(WIDTH - 1, (int) Math.floor(maxScreenX));
+        int y1 = Math.min(HEIGHT - 1, (int) Math.floor(maxScreenY));
+
+        if (x0 > x1 || y0 > y1) {
+            // Entirely off-screen, which is for the frustum check to decide
+            return false;
+        }
+
+        for (int ty = y0 >> TILE_SHIFT; ty <= y1 >> TILE_SHIFT; ty++) {
+            for (int tx = x0 >> TILE_SHIFT; tx <= x1 >> TILE_SHIFT; tx++) {
+                if (this.tileDepth[(ty * TILES_X) + tx] < nearest) {
+                    continue;
+                }
+
+                int py0 = Math.max(y0, ty << TILE_SHIFT), py1 = Math.min(y1, ((ty + 1) << TILE_SHIFT) - 1);
+                int px0 = Math.max(x0, tx << TILE_SHIFT), px1 = Math.min(x1, ((tx + 1) << TILE_SHIFT) - 1);
+
+                for (int y = py0; y <= py1; y++) {
+                    int row = y * WIDTH;
+
+                    for (int x = px0; x <= px1; x++) {
+                        if (this.depth[row + x] >= nearest) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    public int getOccluderCount() {
+        return this.occluderCount;
+    }
+
+    // Fills every pixel which lies entirely within the counter-clockwise polygon held in the hull arrays
+    private void fillConvexPolygon(int count, float depth) {
+        float[] hx = this.hullX, hy = this.hullY;
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, hx[i]);
+            minY = Math.min(minY, hy[i]);
+            maxX = Math.max(maxX, hx[i]);
+            maxY = Math.max(maxY, hy[i]);
+        }
+
+        int x0 = Math.max(0, (int) Math.ceil(minX));
+        int y0 = Math.max(0, (int) Math.ceil(minY));
+        int x1 = Math.min(WIDTH - 1, (int) Math.floor(maxX) - 1);
+        int y1 = Math.min(HEIGHT - 1, (int) Math.floor(maxY) - 1);
+
+        if (x0 > x1 || y0 > y1) {
+            return;
+        }
+
+        hx[count] = hx[0];
+        hy[count] = hy[0];
+
+        for (int y = y0; y <= y1; y++) {
+            float py = y + 0.5f;
+            int row = y * WIDTH;
+
+            for (int x = x0; x <= x1; x++) {
+                float px = x + 0.5f;
+
+                if (isPixelInside(hx, hy, count, px, py) && this.depth[row + x] > depth) {
+                    this.depth[row + x] = depth;
+                }
+            }
+        }
+    }
+
+    private static boolean isPixelInside(float[] hx, float[] hy, int count, float px, float py) {
+        for (int i = 0; i < count; i++) {
+            float ex = hx[i + 1] - hx[i];
+            float ey = hy[i + 1] - hy[i];
+
+            // The edge function at the pixel's center, less the most it can drop anywhere within the pixel
+            float distance = (ex * (py - hy[i])) - (ey * (px - hx[i]));
+            float slack = (Math.abs(ex) + Math.abs(ey)) * 0.5f;
+
+            if (distance < slack) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Computes the convex hull of the projected corners into the hull arrays using the monotone chain algorithm,
+    // returning the number of points in counter-clockwise order.
+    private int computeConvexHull() {
+        float[] cx = this.cornerX, cy = this.cornerY;
+        int[] order = this.order;
+
+        for (int i = 0; i < 8; i++) {
+            int value = i;
+            int j = i - 1;
+
+            while (j >= 0 && (cx[order[j]] > cx[value] || (cx[order[j]] == cx[value] && cy[order[j]] > cy[value]))) {
+                order[j + 1] = order[j];
+                j--;
+            }
+
+            order[j + 1] = value;
+        }
+
+        float[] hx = this.hullX, hy = this.hullY;
+        int size = 0;
+
+        // Lower hull
+        for (int i = 0; i < 8; i++) {
+            int p = order[i];
+
+            while (size >= 2 && cross(hx[size - 2], hy[size - 2], hx[size - 1], hy[size - 1], cx[p], cy[p]) <= 0.0f) {
+                size--;
+            }
+
+            hx[size] = cx[p];
+            hy[size] = cy[p];
+            size++;
+        }
+
+        // Upper hull
+        int lower = size + 1;
+
+        for (int i = 6; i >= 0; i--) {
+            int p = order[i];
+
+            while (size >= lower && cross(hx[size - 2], hy[size - 2], hx[size - 1], hy[size - 1], cx[p], cy[p]) <= 0.0f) {
+                size--;
+            }
+
+            hx[size] = cx[p];
+            hy[size] = cy[p];
+            size++;
+        }
+
+        // The last point is the same as the first
+        return size - 1;
+    }
+
+    private static float cross(float ox, float oy, float ax, float ay, float bx, float by) {
+        return ((ax - ox) * (by - oy)) - ((ay - oy) * (bx - ox));
+    }
+
+    private static float toScreenX(float ndcX) {
+        return ((ndcX * 0.5f) + 0.5f) * WIDTH;
+    }
+
+    private static float toScreenY(float ndcY) {
+        return ((ndcY * 0.5f) + 0.5f) * HEIGHT;
+    }
+}
@@ -0,0 +1,79 @@
+package org.embeddedt.embeddium.impl.render.chunk.occlusion;
+
+/**
+ * Packs the bounding box of the geometry within a section into a single int, so that sections whose geometry lies
+ * entirely outside the frustum (such as a layer of grass at the bottom of a section which only touches the top of
+ * the screen) can be skipped when drawing.
+ *
+ * <p>Each coordinate is stored in whole blocks relative to the origin of the section, with the minimums rounded down
+ * and the maximums rounded up. Block models can extend up to one block outside the section, so every coordinate lies
+ * between -1 and 17, and is stored in five bits.</p>
+ */
+public class SectionBounds {
+    private static final int MIN_COORD = -1;
+    private static final int MAX_COORD = 17;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * The bounds of anything which could be drawn by a section. This is used for sections which have not been built,
+     * and for sections which draw things other than their own geometry.
+     */
+    public static final int FULL = pack(MIN_COORD, MIN_COORD, MIN_COORD, MAX_COORD, MAX_COORD, MAX_COORD);
+
+    /**
+     * {@return the packed bounds containing the given box of vertex positions, or {@link #FULL} if the box is empty}
+     */
+    public static int fromVertexBounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            return FULL;
+        }
+
+        return pack(floor(minX), floor(minY), floor(minZ), ceil(maxX), ceil(maxY), ceil(maxZ));
+    }
+
+    private static int floor(float value) {
+        return Math.max(MIN_COORD, Math.min(MAX_COORD, (int) Math.floor(value)));
+    }
+
+    private static int ceil(float value) {
+        return Math.max(MIN_COORD, Math.min(MAX_COORD, (int) Math.ceil(value)));
+    }
+
+    private static int pack(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return encode(minX, 0) | encode(minY, 1) | encode(minZ, 2) | encode(maxX, 3) | encode(maxY, 4) | encode(maxZ, 5);
+    }
+
+    private static int encode(int coord, int index) {
+        return (coord - MIN_COORD) << (index * BITS);
+    }
+
+    private static int decode(int bounds, int index) {
+        return ((bounds >>> (index * BITS)) & MASK) + MIN_COORD;
+    }
+
+    public static int getMinX(int bounds) {
+        return decode(bounds, 0);
+    }
+
+    public static int getMinY(int bounds) {
+        return decode(bounds, 1);
+    }
+
+    public static int getMinZ(int bounds) {
+        return decode(bounds, 2);
+    }
+
+    public static int getMaxX(int bounds) {
+        return decode(bounds, 3);
+    }
+
+    public static int getMaxY(int bounds) {
+        return decode(bounds, 4);
+    }
+
+    public static int getMaxZ(int bounds) {
+        return decode(bounds, 5);
+    }
+}
@@ -0,0 +1,265 @@
+package org.embeddedt.embeddium.impl.render.chunk.occlusion;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.embeddedt.embeddium.impl.render.chunk.RenderSection;
+import org.embeddedt.embeddium.impl.render.chunk.region.RenderRegion;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The visibility graph of all loaded sections, stored as a set of parallel arrays indexed by a compact section ID.
+ * This holds everything the graph search reads or writes for each section, so that it can walk the graph without
+ * touching any {@link RenderSection} objects, and without chasing pointers between them.
+ *
+ * <p>IDs are handed out when a section is added and recycled when it is removed, which keeps the arrays dense. The
+ * {@link RenderSection} for each ID is kept as well, so that the results of the search can be handed to the rest of
+ * the renderer.</p>
+ */
+public class SectionGraph {
+    public static final int NULL_ID = -1;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private RenderSection[] sections;
+    private RenderRegion[] regions;
+
+    private int[] chunkX, chunkY, chunkZ;
+
+    // Six entries per section, one for each GraphDirection
+    private int[] adjacent;
+    private byte[] adjacentMask;
+
+    private long[] visibilityData;
+
+    // SubFaceVisibility.COUNT entries per section
+    private int[] subFaceVisibility;
+
+    // Packed as described by SectionBounds
+    private int[] geometryBounds;
+
+    private byte[] incomingDirections;
+    private int[] incomingSubFaces;
+    private int[] lastVisibleFrame;
+
+    // The last frame in which the section was reachable from the camera, whether or not it was in the frustum. This is
+    // only tracked by incremental searches, as other searches only reach sections inside the frustum.
+    private int[] lastReachedFrame;
+
+    private final int[] scratchSubFaces = new int[SubFaceVisibility.COUNT];
+
+    private final IntArrayList freeIds = new IntArrayList();
+    private int nextId;
+
+    public SectionGraph() {
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a section to the graph, without any neighbors or visibility data.
+     *
+     * @return The ID of the section in the graph
+     */
+    public int add(RenderSection section) {
+        int id;
+
+        if (!this.freeIds.isEmpty()) {
+            id = this.freeIds.popInt();
+        } else {
+            id = this.nextId++;
+
+            if (id >= this.sections.length) {
+                this.allocate(this.sections.length * 2);
+            }
+        }
+
+        this.sections[id] = section;
+        this.regions[id] = section.getRegion();
+
+        this.chunkX[id] = section.getChunkX();
+        this.chunkY[id] = section.getChunkY();
+        this.chunkZ[id] = section.getChunkZ();
+
+        Arrays.fill(this.adjacent, id * GraphDirection.COUNT, (id + 1) * GraphDirection.COUNT, NULL_ID);
+        this.adjacentMask[id] = GraphDirectionSet.NONE;
+
+        this.visibilityData[id] = VisibilityEncoding.NULL;
+        Arrays.fill(this.subFaceVisibility, id * SubFaceVisibility.COUNT, (id + 1) * SubFaceVisibility.COUNT, 0);
+        this.geometryBounds[id] = SectionBounds.FULL;
+
+        this.incomingDirections[id] = GraphDirectionSet.NONE;
+        this.incomingSubFaces[id] = 0;
+        this.lastVisibleFrame[id] = -1;
+        this.lastReachedFrame[id] = -1;
+
+        return id;
+    }
+
+    /**
+     * Removes a section from the graph, allowing its ID to be re-used. The section must already have been disconnected
+     * from all of its neighbors.
+     */
+    public void remove(int id) {
+        this.sections[id] = null;
+        this.regions[id] = null;
+        this.freeIds.add(id);
+    }
+
+    private void allocate(int capacity) {
+        int prevCapacity = this.sections == null ? 0 : this.sections.length;
+
+        this.sections = copyOf(this.sections, new RenderSection[capacity], prevCapacity);
+        this.regions = copyOf(this.regions, new RenderRegion[capacity], prevCapacity);
+
+        this.chunkX = copyOf(this.chunkX, new int[capacity], prevCapacity);
+        this.chunkY = copyOf(this.chunkY, new int[capacity], prevCapacity);
+        this.chunkZ = copyOf(this.chunkZ, new int[capacity], prevCapacity);
+
+        this.adjacent = copyOf(this.adjacent, new int[capacity * GraphDirection.COUNT], prevCapacity * GraphDirection.COUNT);
+        this.adjacentMask = copyOf(this.adjacentMask, new byte[capacity], prevCapacity);
+
+        this.visibilityData = copyOf(this.visibilityData, new long[capacity], prevCapacity);
+        this.subFaceVisibility = copyOf(this.subFaceVisibility, new int[capacity * SubFaceVisibility.COUNT], prevCapacity * SubFaceVisibility.COUNT);
+
+        this.geometryBounds = copyOf(this.geometryBounds, new int[capacity], prevCapacity);
+
+        this.incomingDirections = copyOf(this.incomingDirections, new byte[capacity], prevCapacity);
+        this.incomingSubFaces = copyOf(this.incomingSubFaces, new int[capacity], prevCapacity);
+        this.lastVisibleFrame = copyOf(this.lastVisibleFrame, new int[capacity], prevCapacity);
+        this.lastReachedFrame = copyOf(this.lastReachedFrame, new int[capacity], prevCapacity);
+    }
+
+    private static <T> T copyOf(T src, T dst, int length) {
+        if (src != null) {
+            System.arraycopy(src, 0, dst, 0, length);
+        }
+
+        return dst;
+    }
+
+    public RenderSection getSection(int id) {
+        return this.sections[id];
+    }
+
+    public RenderRegion getRegion(int id) {
+        return this.regions[id];
+    }
+
+    public int getChunkX(int id) {
+        return this.chunkX[id];
+    }
+
+    public int getChunkY(int id) {
+        return this.chunkY[id];
+    }
+
+    public int getChunkZ(int id) {
+        return this.chunkZ[id];
+    }
+
+    /**
+     * {@return the ID of the neighbor in the given direction, or {@link #NULL_ID} if there is none}
+     */
+    public int getAdjacent(int id, int direction) {
+        return this.adjacent[(id * GraphDirection.COUNT) + direction];
+    }
+
+    public void setAdjacent(int id, int direction, int adjacentId) {
+        this.adjacent[(id * GraphDirection.COUNT) + direction] = adjacentId;
+
+        if (adjacentId == NULL_ID) {
+            this.adjacentMask[id] &= (byte) ~GraphDirectionSet.of(direction);
+        } else {
+            this.adjacentMask[id] |= (byte) GraphDirectionSet.of(direction);
+        }
+    }
+
+    public int getAdjacentMask(int id) {
+        return this.adjacentMask[id];
+    }
+
+    public long getVisibilityData(int id) {
+        return this.visibilityData[id];
+    }
+
+    /**
+     * Sets the visibility data of a section.
+     *
+     * @param data The face-level visibility data
+     * @param subFaces The sub-face visibility data, or null to derive it from the face-level data
+     * @return True if either changed
+     */
+    public boolean setVisibilityData(int id, long data, int @Nullable[] subFaces) {
+        boolean changed = this.visibilityData[id] != data;
+        this.visibilityData[id] = data;
+
+        int offset = id * SubFaceVisibility.COUNT;
+
+        if (subFaces == null) {
+            subFaces = this.scratchSubFaces;
+            SubFaceVisibility.fromVisibilityData(data, subFaces, 0);
+        }
+
+        if (!Arrays.equals(this.subFaceVisibility, offset, offset + SubFaceVisibility.COUNT, subFaces, 0, SubFaceVisibility.COUNT)) {
+            System.arraycopy(subFaces, 0, this.subFaceVisibility, offset, SubFaceVisibility.COUNT);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * {@return the union of the sub-faces visible from each of the given sub-faces of the section}
+     */
+    public int getSubFaceConnections(int id, int incoming) {
+        return SubFaceVisibility.getConnections(this.subFaceVisibility, id * SubFaceVisibility.COUNT, incoming);
+    }
+
+    public int getGeometryBounds(int id) {
+        return this.geometryBounds[id];
+    }
+
+    public void setGeometryBounds(int id, int bounds) {
+        this.geometryBounds[id] = bounds;
+    }
+
+    public int getIncomingDirections(int id) {
+        return this.incomingDirections[id];
+    }
+
+    public void setIncomingDirections(int id, int directions) {
+        this.incomingDirections[id] = (byte) directions;
+    }
+
+    public void addIncomingDirections(int id, int directions) {
+        this.incomingDirections[id] |= (byte) directions;
+    }
+
+    public int getIncomingSubFaces(int id) {
+        return this.incomingSubFaces[id];
+    }
+
+    public void setIncomingSubFaces(int id, int subFaces) {
+        this.incomingSubFaces[id] = subFaces;
+    }
+
+    public void addIncomingSubFaces(int id, int subFaces) {
+        this.incomingSubFaces[id] |= subFaces;
+    }
+
+    public int getLastVisibleFrame(int id) {
+        return this.lastVisibleFrame[id];
+    }
+
+    public void setLastVisibleFrame(int id, int frame) {
+        this.lastVisibleFrame[id] = frame;
+    }
+
+    public int getLastReachedFrame(int id) {
+        return this.lastReachedFrame[id];
+    }
+
+    public void setLastReachedFrame(int id, int frame) {
+        this.lastReachedFrame[id] = frame;
+    }
+}
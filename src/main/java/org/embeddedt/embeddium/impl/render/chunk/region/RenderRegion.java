@@ -43,7 +43,8 @@ public class RenderRegion {
     private final StagingBuffer stagingBuffer;
     private final int x, y, z;
 
-    private final ChunkRenderList renderList;
+    // Two sets of render lists, so that an asynchronous graph search can fill in one while the other is being drawn
+    private final ChunkRenderList[] renderLists;
 
     private final RenderSection[] sections = new RenderSection[RenderRegion.REGION_SIZE];
     private int sectionCount;
@@ -51,13 +52,17 @@ public class RenderRegion {
     private final Map<TerrainRenderPass, SectionRenderDataStorage> sectionRenderData = new Reference2ReferenceOpenHashMap<>();
     private DeviceResources resources;
 
+    // The result of the last frustum test against the whole region, packed together with the number of the graph
+    // search it was made in, so that both can be read and written at once
+    private int cachedFrustumTest = -1;
+
     public RenderRegion(int x, int y, int z, StagingBuffer stagingBuffer) {
         this.x = x;
         this.y = y;
         this.z = z;
 
         this.stagingBuffer = stagingBuffer;
-        this.renderList = new ChunkRenderList(this);
+        this.renderLists = new ChunkRenderList[] { new ChunkRenderList(this), new ChunkRenderList(this) };
     }
 
     public static long key(int x, int y, int z) {
@@ -196,8 +201,20 @@ public class RenderRegion {
         }
     }
 
+    public int getCachedFrustumTest() {
+        return this.cachedFrustumTest;
+    }
+
+    public void setCachedFrustumTest(int result) {
+        this.cachedFrustumTest = result;
+    }
+
     public ChunkRenderList getRenderList() {
-        return this.renderList;
+        return this.getRenderList(0);
+    }
+
+    public ChunkRenderList getRenderList(int index) {
+        return this.renderLists[index];
     }
 
     public static class DeviceResources {
@@ -127,6 +127,56 @@ public class TranslucentQuadAnalyzer {
         hasDistinctNormals = false;
     }
 
+    /**
+     * Appends all quads captured by another analyzer after the quads captured by this one, as if they had been
+     * captured by this analyzer in that order.
+     */
+    public void append(TranslucentQuadAnalyzer other) {
+        int quadOffset = quadCenters.size() / 3;
+
+        quadCenters.addAll(other.quadCenters);
+
+        if(hasDistinctNormals) {
+            return;
+        }
+
+        if(other.hasDistinctNormals) {
+            hasDistinctNormals = true;
+            return;
+        }
+
+        var otherNormal = other.globalNormal;
+
+        if(otherNormal.x == 0 && otherNormal.y == 0 && otherNormal.z == 0) {
+            // The other analyzer has not tracked a normal, so there are no signs to carry over
+            return;
+        }
+
+        boolean flip = false;
+
+        if(globalNormal.x == 0 && globalNormal.y == 0 && globalNormal.z == 0) {
+            globalNormal.set(otherNormal);
+        } else {
+            float dotProduct = globalNormal.dot(otherNormal);
+
+            if (Math.abs(dotProduct) < 0.98) {
+                hasDistinctNormals = true;
+                return;
+            }
+
+            flip = dotProduct < 0;
+        }
+
+        var otherSigns = other.normalSigns;
+        int otherQuads = other.quadCenters.size() / 3;
+
+        for(int quadIdx = 0; quadIdx < otherQuads; quadIdx++) {
+            if(otherSigns.get(quadIdx) != flip) {
+                normalSigns.set(quadOffset + quadIdx);
+            }
+        }
+    }
+
     private void calculateNormal() {
         final Vector3f v0 = vertexPositions[0];
 
@@ -20,6 +20,9 @@ public class ChunkMeshBufferBuilder {
     private int capacity;
     private int sectionIndex;
 
+    // The bounding box of every vertex which has been pushed, relative to the section's origin
+    private float minX, minY, minZ, maxX, maxY, maxZ;
+
     public ChunkMeshBufferBuilder(ChunkVertexType vertexType, int initialCapacity, boolean collectSortState) {
         this.encoder = vertexType.getEncoder();
         this.stride = vertexType.getVertexFormat().getStride();
@@ -50,8 +53,47 @@ public class ChunkMeshBufferBuilder {
 
         for (ChunkVertexEncoder.Vertex vertex : vertices) {
             ptr = this.encoder.write(ptr, material, vertex, this.sectionIndex);
+
+            this.minX = Math.min(this.minX, vertex.x);
+            this.minY = Math.min(this.minY, vertex.y);
+            this.minZ = Math.min(this.minZ, vertex.z);
+            this.maxX = Math.max(this.maxX, vertex.x);
+            this.maxY = Math.max(this.maxY, vertex.y);
+            this.maxZ = Math.max(this.maxZ, vertex.z);
+        }
+
+        this.count += vertexCount;
+    }
+
+    /**
+     * Appends all vertices which have been pushed to another builder, including any captured sorting data. Both
+     * builders must have been started for the same section.
+     */
+    public void append(ChunkMeshBufferBuilder other) {
+        if (other.isEmpty()) {
+            return;
+        }
+
+        var vertexCount = other.count;
+
+        if (this.count + vertexCount >= this.capacity) {
+            this.grow(vertexCount);
+        }
+
+        MemoryUtil.memCopy(MemoryUtil.memAddress(other.buffer), MemoryUtil.memAddress(this.buffer, this.count * this.stride),
+                (long) vertexCount * this.stride);
+
+        if (this.analyzer != null && other.analyzer != null) {
+            this.analyzer.append(other.analyzer);
         }
 
+        this.minX = Math.min(this.minX, other.minX);
+        this.minY = Math.min(this.minY, other.minY);
+        this.minZ = Math.min(this.minZ, other.minZ);
+        this.maxX = Math.max(this.maxX, other.maxX);
+        this.maxY = Math.max(this.maxY, other.maxY);
+        this.maxZ = Math.max(this.maxZ, other.maxZ);
+
         this.count += vertexCount;
     }
 
@@ -71,6 +113,9 @@ public class ChunkMeshBufferBuilder {
     public void start(int sectionIndex) {
         this.count = 0;
         this.sectionIndex = sectionIndex;
+
+        this.minX = this.minY = this.minZ = Float.POSITIVE_INFINITY;
+        this.maxX = this.maxY = this.maxZ = Float.NEGATIVE_INFINITY;
         if(this.analyzer != null) {
             this.analyzer.clear();
         }
@@ -106,4 +151,28 @@ public class ChunkMeshBufferBuilder {
     public int count() {
         return this.count;
     }
+
+    public float getMinX() {
+        return this.minX;
+    }
+
+    public float getMinY() {
+        return this.minY;
+    }
+
+    public float getMinZ() {
+        return this.minZ;
+    }
+
+    public float getMaxX() {
+        return this.maxX;
+    }
+
+    public float getMaxY() {
+        return this.maxY;
+    }
+
+    public float getMaxZ() {
+        return this.maxZ;
+    }
 }
@@ -1,9 +1,15 @@
 package org.embeddedt.embeddium.impl.render.viewport;
 
 import org.embeddedt.embeddium.impl.render.viewport.frustum.Frustum;
+import org.embeddedt.embeddium.impl.render.viewport.frustum.FrustumPlanes;
+import org.embeddedt.embeddium.impl.render.viewport.frustum.SimpleFrustum;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.SectionPos;
 import net.minecraft.world.phys.AABB;
+import org.jetbrains.annotations.Nullable;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
 import org.joml.Vector3d;
 
 public final class Viewport {
@@ -13,8 +19,20 @@ public final class Viewport {
     private final SectionPos chunkCoords;
     private final BlockPos blockCoords;
 
+    @Nullable
+    private final Matrix4fc viewProjection;
+
+    @Nullable
+    private final FrustumPlanes planes;
+
     public Viewport(Frustum frustum, Vector3d position) {
+        this(frustum, position, null);
+    }
+
+    public Viewport(Frustum frustum, Vector3d position, @Nullable Matrix4fc viewProjection) {
         this.frustum = frustum;
+        this.viewProjection = viewProjection;
+        this.planes = viewProjection != null ? new FrustumPlanes(viewProjection) : null;
         this.transform = new CameraTransform(position.x, position.y, position.z);
 
         this.chunkCoords = SectionPos.of(
@@ -61,6 +79,77 @@ public final class Viewport {
         );
     }
 
+    /**
+     * Like {@link #isBoxVisible(int, int, int, float, float, float)}, but with the box given by its corners in block
+     * coordinates, and then grown by the given amount in every direction.
+     */
+    public boolean isBlockBoxVisible(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, float padding) {
+        return this.frustum.testAab(
+                ((minX - this.transform.intX) - this.transform.fracX) - padding,
+                ((minY - this.transform.intY) - this.transform.fracY) - padding,
+                ((minZ - this.transform.intZ) - this.transform.fracZ) - padding,
+
+                ((maxX - this.transform.intX) - this.transform.fracX) + padding,
+                ((maxY - this.transform.intY) - this.transform.fracY) + padding,
+                ((maxZ - this.transform.intZ) - this.transform.fracZ) + padding
+        );
+    }
+
+    /**
+     * Like {@link #isBoxVisible(int, int, int, float, float, float)}, but also tells whether the box is entirely
+     * inside the frustum.
+     *
+     * @return One of {@link Frustum#OUTSIDE}, {@link Frustum#INTERSECT}, or {@link Frustum#INSIDE}
+     */
+    public int getBoxIntersection(int intOriginX, int intOriginY, int intOriginZ, float floatSizeX, float floatSizeY, float floatSizeZ) {
+        float floatOriginX = (intOriginX - this.transform.intX) - this.transform.fracX;
+        float floatOriginY = (intOriginY - this.transform.intY) - this.transform.fracY;
+        float floatOriginZ = (intOriginZ - this.transform.intZ) - this.transform.fracZ;
+
+        return this.frustum.intersectAab(
+                floatOriginX - floatSizeX,
+                floatOriginY - floatSizeY,
+                floatOriginZ - floatSizeZ,
+
+                floatOriginX + floatSizeX,
+                floatOriginY + floatSizeY,
+                floatOriginZ + floatSizeZ
+        );
+    }
+
+    /**
+     * Tests a batch of cubes against the frustum at once, which is much faster than testing each of them with
+     * {@link #isBoxVisible(int, int, int, float)}. This is only possible if the viewport was created with a
+     * projection matrix.
+     *
+     * @param x The X coordinates of the centers of the cubes, relative to the origin
+     * @param y The Y coordinates of the centers of the cubes, relative to the origin
+     * @param z The Z coordinates of the centers of the cubes, relative to the origin
+     * @param count The number of cubes to test
+     * @param originX The X coordinate of the block all positions are relative to
+     * @param originY The Y coordinate of the block all positions are relative to
+     * @param originZ The Z coordinate of the block all positions are relative to
+     * @param halfSize The distance from the center of each cube to its faces
+     * @param results The array to store the results into, which is true if the cube is visible
+     * @return False if batched testing is not supported, in which case nothing is stored into the results
+     */
+    public boolean testCubes(float[] x, float[] y, float[] z, int count,
+                             int originX, int originY, int originZ, float halfSize,
+                             boolean[] results)
+    {
+        if (this.planes == null) {
+            return false;
+        }
+
+        float offsetX = (this.transform.intX - originX) + this.transform.fracX;
+        float offsetY = (this.transform.intY - originY) + this.transform.fracY;
+        float offsetZ = (this.transform.intZ - originZ) + this.transform.fracZ;
+
+        this.planes.testCubes(x, y, z, count, offsetX, offsetY, offsetZ, halfSize, results);
+
+        return true;
+    }
+
     public CameraTransform getTransform() {
         return this.transform;
     }
@@ -72,4 +161,34 @@ public final class Viewport {
     public BlockPos getBlockCoord() {
         return this.blockCoords;
     }
+
+    /**
+     * Creates a copy of this viewport with a wider field of view, so that it also contains everything which would come
+     * into view if the camera turned slightly. The near and far planes are unchanged.
+     *
+     * @param scale How much to widen the field of view by, as a factor of the width and height of the view plane
+     * @return The widened viewport, or this viewport if it was not created with a projection matrix
+     */
+    public Viewport widen(float scale) {
+        if (this.viewProjection == null) {
+            return this;
+        }
+
+        // Shrinking the clip-space X and Y coordinates moves more of the view inside the [-W, W] range
+        var matrix = new Matrix4f()
+                .scaling(1.0f / scale, 1.0f / scale, 1.0f)
+                .mul(this.viewProjection);
+
+        return new Viewport(new SimpleFrustum(new FrustumIntersection(matrix)),
+                new Vector3d(this.transform.x, this.transform.y, this.transform.z), matrix);
+    }
+
+    /**
+     * {@return the matrix which projects positions relative to the camera into clip space, or null if the frustum
+     * was not created from one} This has no translation, so it applies equally to positions relative to the camera's
+     * true position and to the (possibly offset) position of this viewport.
+     */
+    public @Nullable Matrix4fc getViewProjection() {
+        return this.viewProjection;
+    }
 }
@@ -1,5 +1,18 @@
 package org.embeddedt.embeddium.impl.render.viewport.frustum;
 
 public interface Frustum {
+    int OUTSIDE = 0;
+    int INTERSECT = 1;
+    int INSIDE = 2;
+
     boolean testAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ);
+
+    /**
+     * Classifies a box as being {@link #OUTSIDE}, {@link #INSIDE}, or intersecting ({@link #INTERSECT}) the frustum.
+     * The default implementation is unable to tell whether a box is entirely inside, so it never returns
+     * {@link #INSIDE}.
+     */
+    default int intersectAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return this.testAab(minX, minY, minZ, maxX, maxY, maxZ) ? INTERSECT : OUTSIDE;
+    }
 }
@@ -0,0 +1,85 @@
+package org.embeddedt.embeddium.impl.render.viewport.frustum;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector4f;
+
+/**
+ * The six planes of a frustum, used to test many boxes at once. This gives the same results as
+ * {@link org.joml.FrustumIntersection#testAab} would for each box, but tests a whole array of boxes in a single loop
+ * without any branches, which the JIT compiler is able to turn into SIMD instructions.
+ */
+public final class FrustumPlanes {
+    // Plane i is (nx[i], ny[i], nz[i]) . p + nw[i] >= 0 for any point p on the inside
+    private final float[] nx = new float[6], ny = new float[6], nz = new float[6], nw = new float[6];
+
+    public FrustumPlanes(Matrix4fc viewProjection) {
+        var plane = new Vector4f();
+
+        for (int i = 0; i < 6; i++) {
+            viewProjection.frustumPlane(Matrix4f.PLANE_NX + i, plane);
+
+            this.nx[i] = plane.x;
+            this.ny[i] = plane.y;
+            this.nz[i] = plane.z;
+            this.nw[i] = plane.w;
+        }
+    }
+
+    /**
+     * Tests a batch of cubes against the frustum. The position of each cube is given relative to some origin, which
+     * keeps the values small enough to be represented exactly as floats, and the position of the frustum is given
+     * relative to the same origin.
+     *
+     * @param x The X coordinates of the centers of the cubes
+     * @param y The Y coordinates of the centers of the cubes
+     * @param z The Z coordinates of the centers of the cubes
+     * @param count The number of cubes to test
+     * @param offsetX The X coordinate of the frustum's position
+     * @param offsetY The Y coordinate of the frustum's position
+     * @param offsetZ The Z coordinate of the frustum's position
+     * @param halfSize The distance from the center of each cube to its faces
+     * @param results The array to store the results into, which is true if the cube intersects the frustum
+     */
+    public void testCubes(float[] x, float[] y, float[] z, int count,
+                          float offsetX, float offsetY, float offsetZ, float halfSize,
+                          boolean[] results)
+    {
+        // Testing a cube against a plane only needs its center, by moving the plane outwards to where it would touch
+        // the cube's farthest corner. Moving the plane to the frustum's position is folded in as well.
+        float r0 = this.getPlaneOffset(0, offsetX, offsetY, offsetZ, halfSize);
+        float r1 = this.getPlaneOffset(1, offsetX, offsetY, offsetZ, halfSize);
+        float r2 = this.getPlaneOffset(2, offsetX, offsetY, offsetZ, halfSize);
+        float r3 = this.getPlaneOffset(3, offsetX, offsetY, offsetZ, halfSize);
+        float r4 = this.getPlaneOffset(4, offsetX, offsetY, offsetZ, halfSize);
+        float r5 = this.getPlaneOffset(5, offsetX, offsetY, offsetZ, halfSize);
+
+        float nx0 = this.nx[0], ny0 = this.ny[0], nz0 = this.nz[0];
+        float nx1 = this.nx[1], ny1 = this.ny[1], nz1 = this.nz[1];
+        float nx2 = this.nx[2], ny2 = this.ny[2], nz2 = this.nz[2];
+        float nx3 = this.nx[3], ny3 = this.ny[3], nz3 = this.nz[3];
+        float nx4 = this.nx[4], ny4 = this.ny[4], nz4 = this.nz[4];
+        float nx5 = this.nx[5], ny5 = this.ny[5], nz5 = this.nz[5];
+
+        for (int i = 0; i < count; i++) {
+            float px = x[i], py = y[i], pz = z[i];
+
+            float d0 = (nx0 * px) + (ny0 * py) + (nz0 * pz) + r0;
+            float d1 = (nx1 * px) + (ny1 * py) + (nz1 * pz) + r1;
+            float d2 = (nx2 * px) + (ny2 * py) + (nz2 * pz) + r2;
+            float d3 = (nx3 * px) + (ny3 * py) + (nz3 * pz) + r3;
+            float d4 = (nx4 * px) + (ny4 * py) + (nz4 * pz) + r4;
+            float d5 = (nx5 * px) + (ny5 * py) + (nz5 * pz) + r5;
+
+            results[i] = Math.min(Math.min(Math.min(d0, d1), Math.min(d2, d3)), Math.min(d4, d5)) >= 0.0f;
+        }
+    }
+
+    private float getPlaneOffset(int plane, float offsetX, float offsetY, float offsetZ, float halfSize) {
+        float nx = this.nx[plane], ny = this.ny[plane], nz = this.nz[plane];
+
+        return this.nw[plane]
+                - ((nx * offsetX) + (ny * offsetY) + (nz * offsetZ))
+                + (halfSize * (Math.abs(nx) + Math.abs(ny) + Math.abs(nz)));
+    }
+}
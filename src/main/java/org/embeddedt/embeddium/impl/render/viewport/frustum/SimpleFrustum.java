@@ -13,4 +13,17 @@ public final class SimpleFrustum implements Frustum {
     public boolean testAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
         return this.frustum.testAab(minX, minY, minZ, maxX, maxY, maxZ);
     }
+
+    @Override
+    public int intersectAab(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        int result = this.frustum.intersectAab(minX, minY, minZ, maxX, maxY, maxZ);
+
+        if (result == FrustumIntersection.INSIDE) {
+            return INSIDE;
+        } else if (result == FrustumIntersection.INTERSECT) {
+            return INTERSECT;
+        } else {
+            return OUTSIDE;
+        }
+    }
 }
@@ -1,16 +1,11 @@
 package org.embeddedt.embeddium.impl.util.collections;
 
-import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
+public final class DoubleBufferedIntQueue {
+    private QueueImpl read, write;
 
-import java.util.Arrays;
-
-public final class DoubleBufferedQueue<E> {
-    private QueueImpl<E> read, write;
-
-    public DoubleBufferedQueue() {
-        this.read = new QueueImpl<>();
-        this.write = new QueueImpl<>();
+    public DoubleBufferedIntQueue() {
+        this.read = new QueueImpl();
+        this.write = new QueueImpl();
     }
 
     public boolean flip() {
@@ -32,25 +27,24 @@ public final class DoubleBufferedQueue<E> {
         this.write.clear();
     }
 
-    public ReadQueue<E> read() {
+    public IntReadQueue read() {
         return this.read;
     }
 
-    public WriteQueue<E> write() {
+    public IntWriteQueue write() {
         return this.write;
     }
 
-    private static final class QueueImpl<E> implements ReadQueue<E>, WriteQueue<E> {
-        private E[] elements;
+    private static final class QueueImpl implements IntReadQueue, IntWriteQueue {
+        private int[] elements;
         private int readIndex, writeIndex;
 
         QueueImpl() {
             this(256);
         }
 
-        @SuppressWarnings("unchecked")
         QueueImpl(int capacity) {
-            this.elements = (E[]) new Object[capacity];
+            this.elements = new int[capacity];
         }
 
         @Override
@@ -63,16 +57,16 @@ public final class DoubleBufferedQueue<E> {
         }
 
         @Override
-        public @Nullable E dequeue() {
+        public int dequeue() {
             if (this.readIndex == this.writeIndex) {
-                return null;
+                return -1;
             }
 
             return this.elements[this.readIndex++];
         }
 
         @Override
-        public void enqueue(@NotNull E e) {
+        public void enqueue(int e) {
             if (this.writeIndex >= this.elements.length) {
                 this.resize(this.writeIndex + 1);
             }
@@ -80,16 +74,17 @@ public final class DoubleBufferedQueue<E> {
             this.elements[this.writeIndex++] = e;
         }
 
+        @Override
+        public int peek(int offset) {
+            return this.elements[this.readIndex + offset];
+        }
 
         public void clear() {
-            if (this.writeIndex != 0) {
-                Arrays.fill(this.elements, 0, this.writeIndex, null);
-            }
-
             this.readIndex = 0;
             this.writeIndex = 0;
         }
 
+        @Override
         public int size() {
             return this.writeIndex - this.readIndex;
         }
@@ -99,8 +94,7 @@ public final class DoubleBufferedQueue<E> {
         }
 
         private void resize(int length) {
-            @SuppressWarnings("unchecked")
-            E[] elements = (E[]) new Object[length];
+            int[] elements = new int[length];
             System.arraycopy(this.elements, 0, elements, 0, this.writeIndex);
 
             this.elements = elements;
@@ -0,0 +1,19 @@
+package org.embeddedt.embeddium.impl.util.collections;
+
+public interface IntReadQueue {
+    /**
+     * {@return the element at the head of the queue, or {@code -1} if the queue is empty} For this reason, the queue
+     * can only be used to hold non-negative values.
+     */
+    int dequeue();
+
+    /**
+     * {@return the number of elements which have not been dequeued yet}
+     */
+    int size();
+
+    /**
+     * {@return the element at the given offset from the head of the queue} The element is not removed.
+     */
+    int peek(int offset);
+}
@@ -0,0 +1,7 @@
+package org.embeddedt.embeddium.impl.util.collections;
+
+public interface IntWriteQueue {
+    void ensureCapacity(int numElements);
+
+    void enqueue(int e);
+}
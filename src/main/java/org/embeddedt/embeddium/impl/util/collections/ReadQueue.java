@@ -1,7 +0,0 @@
-package org.embeddedt.embeddium.impl.util.collections;
-
-import org.jetbrains.annotations.Nullable;
-
-public interface ReadQueue<E> {
-    @Nullable E dequeue();
-}
@@ -0,0 +1,155 @@
+package org.embeddedt.embeddium.impl.gl.device;
+
+import org.embeddedt.embeddium.impl.gl.array.GlVertexArray;
+import org.embeddedt.embeddium.impl.gl.buffer.*;
+import org.embeddedt.embeddium.impl.gl.sync.GlFence;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlPrimitiveType;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlTessellation;
+import org.embeddedt.embeddium.impl.gl.tessellation.TessellationBinding;
+import org.embeddedt.embeddium.impl.gl.util.EnumBitField;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command list which records the ranges it is asked to flush and the fences it creates, without needing a GL
+ * context. Fences only complete once {@link RecordedFence#complete()} is called. Any other command is unsupported.
+ */
+public class RecordingCommandList implements CommandList {
+    public final List<FlushedRange> flushedRanges = new ArrayList<>();
+    public final List<RecordedFence> fences = new ArrayList<>();
+
+    @Override
+    public void flushMappedRange(GlBufferMapping map, int offset, int length) {
+        this.flushedRanges.add(new FlushedRange(map, offset, length));
+    }
+
+    @Override
+    public GlFence createFence() {
+        var fence = new RecordedFence();
+        this.fences.add(fence);
+
+        return fence;
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+    @Override
+    public GlMutableBuffer createMutableBuffer() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlImmutableBuffer createImmutableBuffer(long bufferSize, EnumBitField<GlBufferStorageFlags> flags) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlTessellation createTessellation(GlPrimitiveType primitiveType, TessellationBinding[] bindings) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void bindVertexArray(GlVertexArray array) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void uploadData(GlMutableBuffer glBuffer, ByteBuffer byteBuffer, GlBufferUsage usage) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void copyBufferSubData(GlBuffer src, GlBuffer dst, long readOffset, long writeOffset, long bytes) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void bindBuffer(GlBufferTarget target, GlBuffer buffer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unbindVertexArray() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void allocateStorage(GlMutableBuffer buffer, long bufferSize, GlBufferUsage usage) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteBuffer(GlBuffer buffer) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteVertexArray(GlVertexArray vertexArray) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DrawCommandList beginTessellating(GlTessellation tessellation) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteTessellation(GlTessellation tessellation) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public GlBufferMapping mapBuffer(GlBuffer buffer, long offset, long length, EnumBitField<GlBufferMapFlags> flags) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void unmap(GlBufferMapping map) {
+        throw new UnsupportedOperationException();
+    }
+
+    public record FlushedRange(GlBufferMapping map, int offset, int length) {
+
+    }
+
+    public static class RecordedFence extends GlFence {
+        private boolean completed;
+        private boolean deleted;
+
+        public RecordedFence() {
+            super(0L);
+        }
+
+        public void complete() {
+            this.completed = true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            if (this.deleted) {
+                throw new IllegalStateException("Fence object has been disposed");
+            }
+
+            return this.completed;
+        }
+
+        @Override
+        public void sync(long timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete() {
+            this.deleted = true;
+        }
+
+        public boolean isDeleted() {
+            return this.deleted;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.embeddedt.embeddium.impl.render.chunk;
+
+import org.embeddedt.embeddium.impl.gl.buffer.GlBufferMapping;
+import org.embeddedt.embeddium.impl.gl.device.MultiDrawBatch;
+import org.embeddedt.embeddium.impl.gl.device.RecordingCommandList;
+import org.embeddedt.embeddium.impl.gl.tessellation.GlIndexType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndirectCommandRingTest {
+    private static final int STRIDE = IndirectCommandRing.COMMAND_STRIDE;
+
+    private final List<MultiDrawBatch> batches = new ArrayList<>();
+
+    @AfterEach
+    public void deleteBatches() {
+        this.batches.forEach(MultiDrawBatch::delete);
+        this.batches.clear();
+    }
+
+    @Test
+    public void packsCommandsOfSortedPass() {
+        var mapping = createMapping(4 * STRIDE);
+        var ring = new IndirectCommandRing(mapping);
+        var commandList = new RecordingCommandList();
+
+        // Sorted passes address each section's own indices with a byte offset into the index buffer
+        var batch = this.createBatch(new long[] { 0, 24, 4000 }, new int[] { 6, 12, 30 }, new int[] { 0, 128, -64 });
+
+        assertEquals(0, ring.write(commandList, batch, GlIndexType.UNSIGNED_INT));
+
+        assertCommand(mapping, 0, 6, 0, 0);
+        assertCommand(mapping, 1, 12, 6, 128);
+        assertCommand(mapping, 2, 30, 1000, -64);
+
+        assertEquals(List.of(new RecordingCommandList.FlushedRange(mapping, 0, 3 * STRIDE)), commandList.flushedRanges);
+    }
+
+    @Test
+    public void convertsElementPointersByIndexStride() {
+        var mapping = createMapping(2 * STRIDE);
+        var ring = new IndirectCommandRing(mapping);
+
+        var batch = this.createBatch(new long[] { 0, 24 }, new int[] { 6, 6 }, new int[] { 0, 0 });
+
+        ring.write(new RecordingCommandList(), batch, GlIndexType.UNSIGNED_SHORT);
+
+        assertCommand(mapping, 0, 6, 0, 0);
+        assertCommand(mapping, 1, 6, 12, 0);
+    }
+
+    @Test
+    public void packsCommandsOfUnsortedPass() {
+        var mapping = createMapping(2 * STRIDE);
+        var ring = new IndirectCommandRing(mapping);
+
+        // Unsorted passes all share the same index buffer, starting from the first index
+        var batch = this.createBatch(new long[] { 0, 0 }, new int[] { 6, 36 }, new int[] { 4, 8 });
+
+        ring.write(new RecordingCommandList(), batch, GlIndexType.UNSIGNED_INT);
+
+        assertCommand(mapping, 0, 6, 0, 4);
+        assertCommand(mapping, 1, 36, 0, 8);
+    }
+
+    @Test
+    public void writesConsecutiveBatchesAfterEachOther() {
+        var mapping = createMapping(5 * STRIDE);
+        var ring = new IndirectCommandRing(mapping);
+        var commandList = new RecordingCommandList();
+
+        assertEquals(0, ring.write(commandList, this.createBatch(2), GlIndexType.UNSIGNED_INT));
+        assertEquals(2 * STRIDE, ring.write(commandList, this.createBatch(3), GlIndexType.UNSIGNED_INT));
+
+        assertEquals(0, ring.getRemaining());
+        assertEquals(2, commandList.flushedRanges.size());
+        assertEquals(2 * STRIDE, commandList.flushedRanges.get(1).offset());
+        assertEquals(3 * STRIDE, commandList.flushedRanges.get(1).length());
+    }
+
+    @Test
+    public void fencesOnlyPassesWhichWroteCommands() {
+        var ring = new IndirectCommandRing(createMapping(4 * STRIDE));
+        var commandList = new RecordingCommandList();
+
+        ring.fence(commandList);
+        assertTrue(commandList.fences.isEmpty());
+
+        ring.write(commandList, this.createBatch(1), GlIndexType.UNSIGNED_INT);
+        ring.fence(commandList);
+        ring.fence(commandList);
+
+        assertEquals(1, commandList.fences.size());
+    }
+
+    @Test
+    public void releasesSpaceOnlyOnceFenceCompletes() {
+        var ring = new IndirectCommandRing(createMapping(4 * STRIDE));
+        var commandList = new RecordingCommandList();
+
+        ring.write(commandList, this.createBatch(3), GlIndexType.UNSIGNED_INT);
+        ring.fence(commandList);
+
+        ring.releaseCompletedRegions();
+        assertEquals(STRIDE, ring.getRemaining());
+        assertEquals(-1, ring.write(commandList, this.createBatch(2), GlIndexType.UNSIGNED_INT));
+
+        var fence = commandList.fences.get(0);
+        fence.complete();
+
+        ring.releaseCompletedRegions();
+        assertEquals(4 * STRIDE, ring.getRemaining());
+        assertTrue(fence.isDeleted());
+    }
+
+    @Test
+    public void releasesRegionsInOrder() {
+        var ring = new IndirectCommandRing(createMapping(4 * STRIDE));
+        var commandList = new RecordingCommandList();
+
+        ring.write(commandList, this.createBatch(1), GlIndexType.UNSIGNED_INT);
+        ring.fence(commandList);
+        ring.write(commandList, this.createBatch(2), GlIndexType.UNSIGNED_INT);
+        ring.fence(commandList);
+
+        var first = commandList.fences.get(0);
+        var second = commandList.fences.get(1);
+
+        // The second fence cannot be released before the first, as the space it covers follows on from it
+        second.complete();
+        ring.releaseCompletedRegions();
+        assertEquals(STRIDE, ring.getRemaining());
+        assertFalse(second.isDeleted());
+
+        first.complete();
+        ring.releaseCompletedRegions();
+        assertEquals(4 * STRIDE, ring.getRemaining());
+        assertTrue(first.isDeleted());
+        assertTrue(second.isDeleted());
+    }
+
+    @Test
+    public void wrapsToStartAndAccountsForSkippedSpace() {
+        var ring = new IndirectCommandRing(createMapping(5 * STRIDE));
+        var commandList = new RecordingCommandList();
+
+        assertEquals(0, ring.write(commandList, this.createBatch(3), GlIndexType.UNSIGNED_INT));
+        ring.fence(commandList);
+
+        // Only two commands are left before the end of the buffer, and they are free, but a batch of three must wrap
+        // around to the start, which is still in use
+        assertEquals(-1, ring.write(commandList, this.createBatch(3), GlIndexType.UNSIGNED_INT));
+        assertEquals(2 * STRIDE, ring.getRemaining());
+
+        commandList.fences.get(0).complete();
+        ring.releaseCompletedRegions();
+
+        // The two commands at the end are skipped, and only released along with the wrapped batch
+        assertEquals(0, ring.write(commandList, this.createBatch(3), GlIndexType.UNSIGNED_INT));
+        assertEquals(0, ring.getRemaining());
+        ring.fence(commandList);
+
+        assertEquals(-1, ring.write(commandList, this.createBatch(1), GlIndexType.UNSIGNED_INT));
+
+        commandList.fences.get(1).complete();
+        ring.releaseCompletedRegions();
+
+        assertEquals(5 * STRIDE, ring.getRemaining());
+        assertEquals(3 * STRIDE, ring.write(commandList, this.createBatch(2), GlIndexType.UNSIGNED_INT));
+    }
+
+    @Test
+    public void rejectsBatchLargerThanBuffer() {
+        var ring = new IndirectCommandRing(createMapping(2 * STRIDE));
+        var commandList = new RecordingCommandList();
+
+        assertEquals(-1, ring.write(commandList, this.createBatch(3), GlIndexType.UNSIGNED_INT));
+        assertEquals(2 * STRIDE, ring.getRemaining());
+
+        ring.fence(commandList);
+
+        assertTrue(commandList.flushedRanges.isEmpty());
+        assertTrue(commandList.fences.isEmpty());
+    }
+
+    @Test
+    public void deletesOutstandingFences() {
+        var ring = new IndirectCommandRing(createMapping(4 * STRIDE));
+        var commandList = new RecordingCommandList();
+
+        ring.write(commandList, this.createBatch(1), GlIndexType.UNSIGNED_INT);
+        ring.fence(commandList);
+        ring.write(commandList, this.createBatch(1), GlIndexType.UNSIGNED_INT);
+        ring.fence(commandList);
+
+        ring.delete();
+
+        assertTrue(commandList.fences.get(0).isDeleted());
+        assertTrue(commandList.fences.get(1).isDeleted());
+    }
+
+    private MultiDrawBatch createBatch(int size) {
+        return this.createBatch(new long[size], new int[size], new int[size]);
+    }
+
+    private MultiDrawBatch createBatch(long[] elementPointers, int[] elementCounts, int[] baseVertices) {
+        var batch = new MultiDrawBatch(elementPointers.length);
+        this.batches.add(batch);
+
+        for (int i = 0; i < elementPointers.length; i++) {
+            MemoryUtil.memPutAddress(batch.pElementPointer + ((long) i << 3), elementPointers[i]);
+            MemoryUtil.memPutInt(batch.pElementCount + ((long) i << 2), elementCounts[i]);
+            MemoryUtil.memPutInt(batch.pBaseVertex + ((long) i << 2), baseVertices[i]);
+        }
+
+        batch.size = elementPointers.length;
+
+        return batch;
+    }
+
+    private static GlBufferMapping createMapping(int capacity) {
+        return new GlBufferMapping(null, ByteBuffer.allocateDirect(capacity));
+    }
+
+    private static void assertCommand(GlBufferMapping mapping, int index, int count, int firstIndex, int baseVertex) {
+        long pCommand = MemoryUtil.memAddress(mapping.getMemoryBuffer()) + (long) index * STRIDE;
+
+        assertEquals(count, MemoryUtil.memGetInt(pCommand), "count");
+        assertEquals(1, MemoryUtil.memGetInt(pCommand + 4), "instanceCount");
+        assertEquals(firstIndex, MemoryUtil.memGetInt(pCommand + 8), "firstIndex");
+        assertEquals(baseVertex, MemoryUtil.memGetInt(pCommand + 12), "baseVertex");
+        assertEquals(0, MemoryUtil.memGetInt(pCommand + 16), "baseInstance");
+    }
+}